@@ -0,0 +1,134 @@
+package com.lab.chche.cache;
+
+import io.lettuce.core.KillArgs;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * transport=client_tracking 下的 L1 失效：在 redis:6 容器上验证其他连接的写入会清掉 L1，
+ * 跟踪连接被断开后自动重新开启 CLIENT TRACKING 并清空 L1
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "multi-level-cache.invalidation.transport=client_tracking",
+        "multi-level-cache.caches.trackingCache.l1-ttl=10m",
+        "multi-level-cache.caches.trackingCache.l2-ttl=10m"
+})
+class ClientTrackingInvalidatorIT {
+
+    private static final String CACHE = "trackingCache";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:6.2-alpine"))
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.redis.host", REDIS::getHost);
+        registry.add("spring.redis.port", () -> REDIS.getMappedPort(6379));
+        registry.add("spring.redis.password", () -> "");
+    }
+
+    @Autowired
+    private MultiLevelCacheManager cacheManager;
+
+    private MultiLevelCacheManager.MultiLevelCache cache;
+    private String prefix;
+    // 模拟其他客户端的独立连接
+    private RedisClient otherClient;
+    private StatefulRedisConnection<String, String> other;
+
+    @BeforeEach
+    void setUp() {
+        cache = (MultiLevelCacheManager.MultiLevelCache) cacheManager.getCache(CACHE);
+        prefix = ((RedisCache) cacheManager.l2Cache(CACHE)).getCacheConfiguration().getKeyPrefixFor(CACHE);
+        otherClient = RedisClient.create("redis://" + REDIS.getHost() + ":" + REDIS.getMappedPort(6379));
+        other = otherClient.connect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        other.close();
+        otherClient.shutdown();
+    }
+
+    @Test
+    void writeFromAnotherConnectionEvictsL1() {
+        populateL1("user:1", "v1");
+
+        other.sync().del(prefix + "user:1");
+
+        await().atMost(TIMEOUT).until(() -> !inL1("user:1"));
+        assertThat(cache.get("user:1")).isNull();
+    }
+
+    @Test
+    void reconnectReenablesTrackingAndClearsL1() {
+        populateL1("user:2", "v2");
+        RedisCommands<String, String> commands = other.sync();
+        List<Long> tracking = trackingClientIds(commands);
+        assertThat(tracking).hasSize(1);
+
+        commands.clientKill(KillArgs.Builder.id(tracking.get(0)));
+
+        // 重连后整体清空 L1
+        await().atMost(TIMEOUT).until(() -> !inL1("user:2"));
+        await().atMost(TIMEOUT).until(() -> trackingClientIds(commands).size() == 1);
+        assertThat(trackingClientIds(commands)).doesNotContain(tracking.get(0));
+
+        // 新连接上的跟踪同样生效
+        populateL1("user:2", "v2");
+        commands.del(prefix + "user:2");
+        await().atMost(TIMEOUT).until(() -> !inL1("user:2"));
+    }
+
+    /**
+     * 写入后等待自身写入的推送把 L1 置为 tombstone，再读一次从 L2 回填，避免推送晚到清掉回填的值
+     */
+    private void populateL1(String key, String value) {
+        cache.put(key, value);
+        await().atMost(TIMEOUT).until(() -> !inL1(key));
+        Cache.ValueWrapper wrapper = cache.get(key);
+        assertThat(wrapper).isNotNull();
+        assertThat(wrapper.get()).isEqualTo(value);
+        assertThat(inL1(key)).isTrue();
+    }
+
+    private boolean inL1(String key) {
+        Object entry = cacheManager.getNativeCache(CACHE).getIfPresent(key);
+        return entry != null && !((CacheEntry) entry).isTombstone();
+    }
+
+    /**
+     * CLIENT LIST 中开启了跟踪（flags 含 t）的连接
+     */
+    private static List<Long> trackingClientIds(RedisCommands<String, String> commands) {
+        return Arrays.stream(commands.clientList().split("\n"))
+                .filter(line -> line.matches(".*\\bflags=\\S*t\\S*.*"))
+                .map(line -> Long.parseLong(line.replaceAll(".*\\bid=(\\d+).*", "$1").trim()))
+                .collect(Collectors.toList());
+    }
+}
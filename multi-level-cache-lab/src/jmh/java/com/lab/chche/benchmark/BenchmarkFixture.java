@@ -0,0 +1,147 @@
+package com.lab.chche.benchmark;
+
+import com.lab.chche.cache.CacheSpecSupport;
+import com.lab.chche.cache.MultiLevelCacheManager;
+import com.lab.chche.cache.ReconfigurableRedisCacheManager;
+import com.lab.chche.cache.offheap.OffHeapCacheManager;
+import com.lab.chche.cache.serializer.CacheValueSerializer;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import com.lab.chche.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基准测试共用的多级缓存：Caffeine L1、{@link InMemoryRedisCacheWriter} L2，发布同步消息的 Redis 连接只计数不发送
+ */
+final class BenchmarkFixture {
+
+    static final String USER_CACHE = "userCache";
+    static final List<String> KRYO_REGISTRATIONS = Arrays.asList(
+            UserService.User.class.getName(), UserService.UserOrg.class.getName());
+
+    final MultiLevelCacheProperties properties;
+    final CaffeineCacheManager l1CacheManager;
+    final ReconfigurableRedisCacheManager l2CacheManager;
+    final MultiLevelCacheManager cacheManager;
+    // 已发布的同步消息数
+    final AtomicLong published = new AtomicLong();
+
+    BenchmarkFixture(MultiLevelCacheProperties.CacheCodec codec) {
+        this.properties = properties(codec);
+        this.l1CacheManager = new CaffeineCacheManager();
+        l1CacheManager.setCaffeine(CacheSpecSupport.caffeine(properties.getDefaultSpec()));
+        properties.getCaches().forEach((name, spec) ->
+                l1CacheManager.registerCustomCache(name, CacheSpecSupport.caffeine(spec).build()));
+
+        RedisConnectionFactory connectionFactory = connectionFactory(published);
+        this.l2CacheManager = new ReconfigurableRedisCacheManager(
+                connectionFactory,
+                new InMemoryRedisCacheWriter(),
+                RedisCacheConfiguration.defaultCacheConfig().serializeKeysWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new StringRedisSerializer())),
+                properties,
+                CacheValueSerializer.createCodecs(KRYO_REGISTRATIONS));
+        l2CacheManager.afterPropertiesSet();
+
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        this.cacheManager = new MultiLevelCacheManager(l1CacheManager, l2CacheManager,
+                new OffHeapCacheManager(properties, l2CacheManager::valueSerializer),
+                redisTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    private static MultiLevelCacheProperties properties(MultiLevelCacheProperties.CacheCodec codec) {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setNodeId("benchmark-local");
+        properties.getCodec().setKryoRegistrations(KRYO_REGISTRATIONS);
+        MultiLevelCacheProperties.CacheSpec spec = new MultiLevelCacheProperties.CacheSpec();
+        spec.setL1MaxSize(1_000_000);
+        spec.setL1Ttl(Duration.ofHours(1));
+        spec.setL2Ttl(Duration.ofHours(1));
+        spec.setCodec(codec);
+        properties.getCaches().put(USER_CACHE, spec);
+        return properties;
+    }
+
+    MultiLevelCacheProperties.CacheSpec userCacheSpec() {
+        return properties.getCacheSpec(USER_CACHE);
+    }
+
+    void close() {
+        cacheManager.destroy();
+    }
+
+    static UserService.User user(long id) {
+        UserService.User user = new UserService.User(id, "User" + id, "user" + id + "@example.com");
+        UserService.UserOrg org = new UserService.UserOrg();
+        org.setOrgId(id % 16);
+        org.setOrgName("Org" + (id % 16));
+        user.setUserOrg(org);
+        return user;
+    }
+
+    static List<UserService.User> users(int size) {
+        List<UserService.User> users = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            users.add(user(id));
+        }
+        return users;
+    }
+
+    /**
+     * 只实现 PUBLISH 的连接工厂，其余命令返回空值
+     */
+    private static RedisConnectionFactory connectionFactory(AtomicLong published) {
+        RedisConnection connection = proxy(RedisConnection.class, (proxy, method, args) -> {
+            if ("publish".equals(method.getName())) {
+                published.incrementAndGet();
+                return 1L;
+            }
+            return objectMethod(proxy, method.getName(), args, method.getReturnType());
+        });
+        return proxy(RedisConnectionFactory.class, (proxy, method, args) -> "getConnection".equals(method.getName())
+                ? connection : objectMethod(proxy, method.getName(), args, method.getReturnType()));
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args, Class<?> returnType) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "benchmark-" + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+                if (returnType == int.class) {
+                    return 0;
+                }
+                return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(BenchmarkFixture.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
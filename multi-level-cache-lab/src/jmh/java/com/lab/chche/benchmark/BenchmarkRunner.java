@@ -0,0 +1,46 @@
+package com.lab.chche.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 依次以 1、4、16 个线程运行全部基准测试，附带 GC profiler 输出分配速率，结果按线程数写入 JSON
+ * <p>
+ * mvn -Pjmh test-compile exec:exec 运行；-Djmh.include、-Djmh.threads、-Djmh.resultDir 可覆盖默认值。
+ * 传入参数时直接交给 JMH 命令行处理。
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        String include = System.getProperty("jmh.include", BenchmarkRunner.class.getPackage().getName() + "\\..*");
+        File resultDir = new File(System.getProperty("jmh.resultDir", "target/jmh"));
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IOException("无法创建结果目录 " + resultDir);
+        }
+        for (String threads : System.getProperty("jmh.threads", "1,4,16").split(",")) {
+            int count = Integer.parseInt(threads.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(count)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "threads-" + count + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
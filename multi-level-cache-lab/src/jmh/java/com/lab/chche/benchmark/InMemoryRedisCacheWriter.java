@@ -0,0 +1,63 @@
+package com.lab.chche.benchmark;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 进程内的 L2 替身，按字节保存 RedisCache 写入的 key 与值，不处理 TTL
+ * <p>
+ * 保留 RedisCache 的 key 前缀与值序列化开销，只去掉网络往返，用于比较缓存自身代码路径的变化。
+ */
+final class InMemoryRedisCacheWriter implements RedisCacheWriter {
+
+    private final ConcurrentMap<ByteBuffer, byte[]> store = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        store.put(ByteBuffer.wrap(key), value);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return store.get(ByteBuffer.wrap(key));
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return store.putIfAbsent(ByteBuffer.wrap(key), value);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        store.remove(ByteBuffer.wrap(key));
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        // RedisCache 清空时传入 "<prefix>*"，按前缀删除
+        int prefixLength = pattern.length > 0 && pattern[pattern.length - 1] == '*' ? pattern.length - 1 : pattern.length;
+        ByteBuffer prefix = ByteBuffer.wrap(pattern, 0, prefixLength);
+        store.keySet().removeIf(key -> key.remaining() >= prefixLength
+                && key.duplicate().limit(key.position() + prefixLength).equals(prefix));
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return this;
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return CacheStatisticsCollector.none().getCacheStatistics(cacheName);
+    }
+}
@@ -0,0 +1,92 @@
+package com.lab.chche.benchmark;
+
+import com.lab.chche.config.MultiLevelCacheProperties;
+import com.lab.chche.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MultiLevelCacheManager 的读写热点路径：getCache() + get() 的 L1 命中、L1 未命中 L2 命中，以及写入并发布同步消息
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiLevelCacheBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    private BenchmarkFixture fixture;
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+    // 预先装箱，避免 Long.valueOf 的分配计入结果
+    private Long[] keys;
+    private UserService.User[] users;
+
+    @State(Scope.Thread)
+    public static class KeyCursor {
+
+        private int next = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+
+        int next() {
+            return next++ & (KEY_COUNT - 1);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture(MultiLevelCacheProperties.CacheCodec.KRYO);
+        keys = new Long[KEY_COUNT];
+        users = new UserService.User[KEY_COUNT];
+        Cache cache = fixture.cacheManager.getCache(BenchmarkFixture.USER_CACHE);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = (long) i;
+            users[i] = BenchmarkFixture.user(i);
+            cache.put(keys[i], users[i]);
+        }
+        l1 = fixture.cacheManager.getNativeCache(BenchmarkFixture.USER_CACHE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object l1Hit(KeyCursor cursor) {
+        return fixture.cacheManager.getCache(BenchmarkFixture.USER_CACHE).get(keys[cursor.next()]);
+    }
+
+    /**
+     * 先移除 L1 条目，读取经 L2 反序列化后回填 L1；移除的开销一并计入
+     */
+    @Benchmark
+    public Object l2Hit(KeyCursor cursor) {
+        Long key = keys[cursor.next()];
+        l1.invalidate(key);
+        return fixture.cacheManager.getCache(BenchmarkFixture.USER_CACHE).get(key);
+    }
+
+    /**
+     * 写入 L1、L2 并发布携带值的更新消息
+     */
+    @Benchmark
+    public void putAndPublish(KeyCursor cursor) {
+        int index = cursor.next();
+        fixture.cacheManager.getCache(BenchmarkFixture.USER_CACHE).put(keys[index], users[index]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.lab.chche.benchmark;
+
+import com.lab.chche.cache.CacheEntry;
+import com.lab.chche.cache.serializer.CacheValueSerializer;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L2 值编解码，值与实际写入 L2 的内容一致，包装在 {@link CacheEntry} 中
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    private static final int LIST_SIZE = 100;
+
+    @Param({"JSON", "SMILE", "CBOR", "KRYO"})
+    public MultiLevelCacheProperties.CacheCodec codec;
+
+    // user：单个 User；userList：100 个 User 的列表
+    @Param({"user", "userList"})
+    public String shape;
+
+    // 编码后超过该字节数时压缩，0 表示不压缩
+    @Param({"0"})
+    public int compressThreshold;
+
+    private CacheValueSerializer serializer;
+    private CacheEntry entry;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = new CacheValueSerializer(CacheValueSerializer.createCodecs(BenchmarkFixture.KRYO_REGISTRATIONS),
+                codec, compressThreshold);
+        Object value = "userList".equals(shape) ? BenchmarkFixture.users(LIST_SIZE) : BenchmarkFixture.user(1L);
+        entry = new CacheEntry(value, System.currentTimeMillis() << 16, "benchmark-local");
+        bytes = serializer.serialize(entry);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(entry);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(bytes);
+    }
+}
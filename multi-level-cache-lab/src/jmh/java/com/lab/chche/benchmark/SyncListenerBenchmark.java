@@ -0,0 +1,96 @@
+package com.lab.chche.benchmark;
+
+import com.lab.chche.cache.CacheEvictMessageListener;
+import com.lab.chche.cache.CacheInvalidationPublisher;
+import com.lab.chche.cache.CacheSyncCodec;
+import com.lab.chche.cache.CacheUpdateMessageListener;
+import com.lab.chche.cache.HybridLogicalClock;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步消息监听器在订阅线程上的吞吐：解码帧、查找缓存并分发到按 key 分段的处理线程
+ * <p>
+ * 消息在 setUp 中编码一次，重复投递时版本不再更新。处理线程跟不上时队列写满，
+ * 之后的调用走降级路径，在监听线程上写入 tombstone，结果可与 cache.multilevel.sync.dropped 对照。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncListenerBenchmark {
+
+    private static final String REMOTE_NODE = "benchmark-remote";
+
+    // 每条失效消息中的 key 数
+    @Param({"1", "64"})
+    public int batchSize;
+
+    private BenchmarkFixture fixture;
+    private CacheUpdateMessageListener updateListener;
+    private CacheEvictMessageListener evictListener;
+    private Message update;
+    private Message evict;
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture(MultiLevelCacheProperties.CacheCodec.KRYO);
+        updateListener = new CacheUpdateMessageListener(fixture.cacheManager, fixture.properties);
+        evictListener = new CacheEvictMessageListener(fixture.cacheManager, fixture.properties);
+        // 同步消息只投递给已创建的缓存
+        fixture.cacheManager.getCache(BenchmarkFixture.USER_CACHE);
+
+        long version = new HybridLogicalClock().now();
+        byte[] value = fixture.l2CacheManager.valueSerializer(fixture.userCacheSpec())
+                .serialize(BenchmarkFixture.user(1L));
+        update = new DefaultMessage(channel(CacheInvalidationPublisher.UPDATE_CHANNEL),
+                CacheSyncCodec.encodeUpdate(REMOTE_NODE, BenchmarkFixture.USER_CACHE, 1L, version, value));
+
+        Map<Object, Long> keys = new LinkedHashMap<>();
+        for (long id = 1; id <= batchSize; id++) {
+            keys.put(id, version);
+        }
+        evict = new DefaultMessage(channel(CacheInvalidationPublisher.EVICT_CHANNEL),
+                CacheSyncCodec.encodeInvalidation(REMOTE_NODE, BenchmarkFixture.USER_CACHE, keys,
+                        keys.keySet()));
+    }
+
+    private static byte[] channel(String channel) {
+        return channel.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void onUpdate() {
+        updateListener.onMessage(update, null);
+    }
+
+    @Benchmark
+    public void onEvict() {
+        evictListener.onMessage(evict, null);
+    }
+}
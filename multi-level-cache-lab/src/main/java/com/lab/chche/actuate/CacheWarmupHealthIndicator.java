@@ -0,0 +1,31 @@
+package com.lab.chche.actuate;
+
+import com.lab.chche.cache.CacheWarmer;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存预热进度，预热结束前为 OUT_OF_SERVICE
+ * <p>
+ * 加入 readiness 健康组后，负载均衡在预热完成前不会把流量转发到新实例；超时或失败同样视为结束，不会一直阻止就绪。
+ */
+@Component
+public class CacheWarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final CacheWarmer cacheWarmer;
+
+    public CacheWarmupHealthIndicator(CacheWarmer cacheWarmer) {
+        this.cacheWarmer = cacheWarmer;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (cacheWarmer.isFinished()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetails(cacheWarmer.getProgress());
+    }
+}
@@ -0,0 +1,52 @@
+package com.lab.chche.actuate;
+
+import com.lab.chche.cache.MultiLevelCacheManager;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点 key 端点
+ * <p>
+ * GET /actuator/hotkeys 查看所有缓存当前的 Top-K 热点 key 及估算的采样频率；
+ * GET /actuator/hotkeys/{cacheName} 只查看单个缓存。
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final MultiLevelCacheManager multiLevelCacheManager;
+
+    public HotKeysEndpoint(MultiLevelCacheManager multiLevelCacheManager) {
+        this.multiLevelCacheManager = multiLevelCacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Integer>> hotKeys() {
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        for (String cacheName : multiLevelCacheManager.getCacheNames()) {
+            Map<String, Integer> hotKeys = hotKeys(cacheName);
+            if (hotKeys != null && !hotKeys.isEmpty()) {
+                result.put(cacheName, hotKeys);
+            }
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Integer> hotKeys(@Selector String cacheName) {
+        // 未创建的缓存返回 null（404），不按任意名称创建缓存
+        MultiLevelCacheManager.MultiLevelCache cache = multiLevelCacheManager.existingCache(cacheName);
+        if (cache == null) {
+            return null;
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        cache.getHotKeys()
+                .forEach((key, frequency) -> result.put(String.valueOf(key), frequency));
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.lab.chche.actuate;
+
+import com.lab.chche.cache.MultiLevelCacheManager;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 多级缓存配置端点
+ * <p>
+ * GET /actuator/multilevelcache 查看各缓存当前生效的配置；
+ * POST /actuator/multilevelcache 从 Environment 重新绑定 multi-level-cache.caches.* 并热更新到两级缓存。
+ */
+@Component
+@Endpoint(id = "multilevelcache")
+public class MultiLevelCacheEndpoint {
+
+    private final MultiLevelCacheManager multiLevelCacheManager;
+    private final Environment environment;
+
+    public MultiLevelCacheEndpoint(MultiLevelCacheManager multiLevelCacheManager, Environment environment) {
+        this.multiLevelCacheManager = multiLevelCacheManager;
+        this.environment = environment;
+    }
+
+    @ReadOperation
+    public Map<String, MultiLevelCacheProperties.CacheSpec> specs() {
+        return multiLevelCacheManager.getCacheSpecs();
+    }
+
+    @WriteOperation
+    public Map<String, MultiLevelCacheProperties.CacheSpec> reload() {
+        MultiLevelCacheProperties properties = Binder.get(environment)
+                .bind("multi-level-cache", MultiLevelCacheProperties.class)
+                .orElseGet(MultiLevelCacheProperties::new);
+        multiLevelCacheManager.reconfigure(properties);
+        return multiLevelCacheManager.getCacheSpecs();
+    }
+}
@@ -0,0 +1,451 @@
+package com.lab.chche.cache;
+
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 在 RedisCache 基础上增加批量读写：多 key 读取合并为一次 MGET，多 key 写入在同一个 pipeline 中发送；
+ * putIfAbsent 由一次脚本调用原子完成
+ * <p>
+ * key 与值的编码沿用父类，与单 key 的 get/put 写入的数据互通。写入方法均有指定 TTL 的重载，
+ * 用于同一缓存内过期时间不同的条目（如空值）。单 key 的读、写、删除另有基于 Lettuce 响应式连接的异步版本。
+ */
+public class BulkRedisCache extends RedisCache {
+
+    // SET NX 失败时在同一次调用中返回已存在的值，避免 SETNX 与 GET 之间 key 过期导致的误判
+    private static final byte[] PUT_IF_ABSENT_SCRIPT = (
+            "local ok\n" +
+            "if tonumber(ARGV[2]) > 0 then\n" +
+            "  ok = redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2])\n" +
+            "else\n" +
+            "  ok = redis.call('SET', KEYS[1], ARGV[1], 'NX')\n" +
+            "end\n" +
+            "if ok then return false end\n" +
+            "return redis.call('GET', KEYS[1])").getBytes(StandardCharsets.UTF_8);
+
+    private static final long SCAN_COUNT = 500;
+
+    // 取出标签集合的全部成员并删除集合，之后写入的 key 进入新集合，不会被这次失效误删或漏删
+    private static final byte[] POP_TAG_SCRIPT = (
+            "local members = redis.call('SMEMBERS', KEYS[1])\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "return members").getBytes(StandardCharsets.UTF_8);
+
+    // 移出缓存条目已不存在的标签成员；检查与移除在脚本中原子完成，不会误删检查之后重新写入的 key
+    // KEYS[1] 为标签集合，KEYS[i + 1] 为 ARGV[i] 对应的缓存 key
+    private static final byte[] PRUNE_TAG_SCRIPT = (
+            "local removed = 0\n" +
+            "for i = 1, #ARGV do\n" +
+            "  if redis.call('EXISTS', KEYS[i + 1]) == 0 then\n" +
+            "    removed = removed + redis.call('SREM', KEYS[1], ARGV[i])\n" +
+            "  end\n" +
+            "end\n" +
+            "return removed").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisCacheWriter cacheWriter;
+
+    protected BulkRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig,
+                             RedisConnectionFactory connectionFactory) {
+        super(name, cacheWriter, cacheConfig);
+        this.connectionFactory = connectionFactory;
+        this.cacheWriter = cacheWriter;
+    }
+
+    /**
+     * 按指定 TTL 写入单个 key
+     */
+    public void put(Object key, Object value, Duration ttl) {
+        cacheWriter.put(getName(), rawKey(key), rawValue(value), ttl);
+    }
+
+    /**
+     * 按指定 TTL 写入单个 key，并在同一个 pipeline 中把 key 加入各标签集合
+     */
+    public void put(Object key, Object value, Duration ttl, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            put(key, value, ttl);
+            return;
+        }
+        writeAll(Collections.singletonMap(key, value), v -> ttl, Collections.emptyList(), (k, v) -> tags);
+    }
+
+    /**
+     * 一次 MGET 读取多个 key
+     *
+     * @return 命中的 key 到值的映射，未命中的 key 不出现在结果中
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<Object> keyList = new ArrayList<>(keys);
+        byte[][] rawKeys = new byte[keyList.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = rawKey(keyList.get(i));
+        }
+        List<byte[]> rawValues;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            rawValues = connection.stringCommands().mGet(rawKeys);
+        }
+        if (rawValues == null) {
+            return result;
+        }
+        for (int i = 0; i < rawValues.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue != null) {
+                result.put(keyList.get(i), fromStoreValue(deserializeCacheValue(rawValue)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在一个 pipeline 中写入多个 key，TTL 与单 key 写入相同
+     */
+    public void putAll(Map<?, ?> values) {
+        Duration ttl = getCacheConfiguration().getTtl();
+        putAll(values, value -> ttl);
+    }
+
+    /**
+     * 在一个 pipeline 中写入多个 key
+     *
+     * @param ttlFunction 按值决定每个 key 的 TTL
+     */
+    public void putAll(Map<?, ?> values, Function<Object, Duration> ttlFunction) {
+        writeAll(values, ttlFunction, Collections.emptyList(), null);
+    }
+
+    /**
+     * 在同一个 pipeline 中写入与删除多个 key，用于写后缓冲的批量刷新
+     *
+     * @param tagFunction 按 key 和值给出写入的 key 所属的标签，可为 null
+     */
+    public void writeAll(Map<?, ?> values, Function<Object, Duration> ttlFunction, Collection<?> deletes,
+                         BiFunction<Object, Object, Collection<String>> tagFunction) {
+        if (values.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (Map.Entry<?, ?> entry : values.entrySet()) {
+                    connection.stringCommands().set(rawKey(entry.getKey()), rawValue(entry.getValue()),
+                            expiration(ttlFunction.apply(entry.getValue())), RedisStringCommands.SetOption.upsert());
+                    if (tagFunction != null) {
+                        addTags(connection, entry.getKey(), tagFunction.apply(entry.getKey(), entry.getValue()));
+                    }
+                }
+                for (Object key : deletes) {
+                    connection.keyCommands().del(rawKey(key));
+                }
+            } finally {
+                connection.closePipeline();
+            }
+        }
+    }
+
+    /**
+     * SET key value NX PX ttl，失败时返回已存在的值，整个过程在 Redis 中原子执行
+     *
+     * @return 写入成功返回 null，否则返回已存在的值
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return putIfAbsent(key, value, getCacheConfiguration().getTtl());
+    }
+
+    /**
+     * 按指定 TTL 执行 {@link #putIfAbsent(Object, Object)}
+     */
+    public ValueWrapper putIfAbsent(Object key, Object value, Duration ttl) {
+        long millis = ttl == null || ttl.isNegative() ? 0L : ttl.toMillis();
+        byte[] ttlMillis = String.valueOf(millis).getBytes(StandardCharsets.UTF_8);
+        byte[] existing;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            existing = connection.scriptingCommands().eval(PUT_IF_ABSENT_SCRIPT, ReturnType.VALUE, 1,
+                    rawKey(key), rawValue(value), ttlMillis);
+        }
+        return existing != null ? new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(existing))) : null;
+    }
+
+    /**
+     * 把 key 加入各标签集合
+     */
+    public void addTags(Object key, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                addTags(connection, key, tags);
+            } finally {
+                connection.closePipeline();
+            }
+        }
+    }
+
+    private void addTags(RedisConnection connection, Object key, Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        byte[] member = CacheSyncCodec.encodeKey(key);
+        Duration ttl = getCacheConfiguration().getTtl();
+        for (String tag : tags) {
+            byte[] tagKey = tagKey(tag);
+            connection.setCommands().sAdd(tagKey, member);
+            // 标签集合与缓存条目的默认 TTL 相同，每次写入时续期
+            if (!ttl.isZero() && !ttl.isNegative()) {
+                connection.keyCommands().pExpire(tagKey, ttl.toMillis());
+            }
+        }
+    }
+
+    /**
+     * 原子地取出并删除标签集合
+     *
+     * @return 写入时带有该标签的 key，其中可能有已过期或已删除的 key
+     */
+    public List<Object> popTag(String tag) {
+        List<byte[]> members;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            members = connection.scriptingCommands().eval(POP_TAG_SCRIPT, ReturnType.MULTI, 1, tagKey(tag));
+        }
+        List<Object> keys = new ArrayList<>();
+        if (members != null) {
+            for (byte[] member : members) {
+                keys.add(CacheSyncCodec.decodeKey(member));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 用 SSCAN 读取标签集合，不删除；L2 中已不存在的成员顺带从集合中移除
+     * <p>
+     * 只按条件失效、从不整体取出的标签（如查询标签）每次写入都会续期，不清理的话过期条目会一直留在集合中。
+     *
+     * @return 写入时带有该标签的 key，其中可能有已过期或已删除的 key
+     */
+    public List<Object> tagMembers(String tag) {
+        byte[] tagKey = tagKey(tag);
+        List<byte[]> members = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().count(SCAN_COUNT).build();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            try (Cursor<byte[]> cursor = connection.setCommands().sScan(tagKey, options)) {
+                cursor.forEachRemaining(members::add);
+            }
+            for (int from = 0; from < members.size(); from += SCAN_COUNT) {
+                pruneTag(connection, tagKey, members.subList(from, (int) Math.min(members.size(), from + SCAN_COUNT)));
+            }
+        }
+        List<Object> keys = new ArrayList<>(members.size());
+        for (byte[] member : members) {
+            keys.add(CacheSyncCodec.decodeKey(member));
+        }
+        return keys;
+    }
+
+    /**
+     * 把缓存条目已不存在（过期或删除）的成员移出标签集合
+     */
+    private void pruneTag(RedisConnection connection, byte[] tagKey, List<byte[]> members) {
+        int count = members.size();
+        byte[][] keysAndArgs = new byte[1 + count * 2][];
+        keysAndArgs[0] = tagKey;
+        for (int i = 0; i < count; i++) {
+            byte[] member = members.get(i);
+            keysAndArgs[1 + i] = rawKey(CacheSyncCodec.decodeKey(member));
+            keysAndArgs[1 + count + i] = member;
+        }
+        connection.scriptingCommands().eval(PRUNE_TAG_SCRIPT, ReturnType.INTEGER, 1 + count, keysAndArgs);
+    }
+
+    /**
+     * 把 key 从标签集合中移除
+     */
+    public void removeFromTag(String tag, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        byte[][] members = new byte[keys.size()][];
+        int i = 0;
+        for (Object key : keys) {
+            members[i++] = CacheSyncCodec.encodeKey(key);
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.setCommands().sRem(tagKey(tag), members);
+        }
+    }
+
+    /**
+     * 标签集合的 Redis key，不带缓存前缀，不会被 clear() 和 SCAN 预热当作缓存条目
+     */
+    private byte[] tagKey(String tag) {
+        return (getName() + ":tag:" + tag).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 用 SCAN 遍历本缓存在 Redis 中的 key，不阻塞 Redis
+     *
+     * @param limit 最多返回的 key 数量
+     * @return 去掉缓存前缀后的 key 字符串
+     */
+    public List<String> scanKeys(int limit) {
+        List<String> keys = new ArrayList<>();
+        if (limit <= 0) {
+            return keys;
+        }
+        String prefix = getCacheConfiguration().getKeyPrefixFor(getName());
+        ScanOptions options = ScanOptions.scanOptions().match(escapeGlob(prefix) + "*").count(SCAN_COUNT).build();
+        try (RedisConnection connection = connectionFactory.getConnection();
+             Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext() && keys.size() < limit) {
+                String key = new String(cursor.next(), StandardCharsets.UTF_8);
+                if (key.startsWith(prefix)) {
+                    keys.add(key.substring(prefix.length()));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String escapeGlob(String pattern) {
+        StringBuilder escaped = new StringBuilder(pattern.length());
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * 异步读取单个 key，使用 Lettuce 的响应式连接，不阻塞调用线程
+     *
+     * @return 完成值为缓存值，未命中时为 null；回调在 Redis I/O 线程上执行
+     */
+    public CompletableFuture<Object> getAsync(Object key) {
+        byte[] rawKey = rawKey(key);
+        return withReactiveConnection(connection -> connection.stringCommands().get(ByteBuffer.wrap(rawKey))
+                .map(value -> fromStoreValue(deserializeCacheValue(ByteUtils.getBytes(value)))),
+                () -> {
+                    ValueWrapper wrapper = get(key);
+                    return wrapper != null ? wrapper.get() : null;
+                });
+    }
+
+    /**
+     * 按指定 TTL 异步写入单个 key，值在调用线程上完成序列化
+     */
+    public CompletableFuture<Void> putAsync(Object key, Object value, Duration ttl) {
+        return putAsync(key, value, ttl, Collections.emptyList());
+    }
+
+    /**
+     * 按指定 TTL 异步写入单个 key，写入成功后把 key 加入各标签集合
+     */
+    public CompletableFuture<Void> putAsync(Object key, Object value, Duration ttl, Collection<String> tags) {
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = rawValue(value);
+        ByteBuffer member = tags.isEmpty() ? null : ByteBuffer.wrap(CacheSyncCodec.encodeKey(key));
+        Duration tagTtl = getCacheConfiguration().getTtl();
+        return withReactiveConnection(connection -> {
+                    Mono<Void> write = connection.stringCommands()
+                            .set(ByteBuffer.wrap(rawKey), ByteBuffer.wrap(rawValue), expiration(ttl),
+                                    RedisStringCommands.SetOption.upsert())
+                            .then();
+                    for (String tag : tags) {
+                        ByteBuffer tagKey = ByteBuffer.wrap(tagKey(tag));
+                        write = write.then(connection.setCommands().sAdd(tagKey, member.duplicate()).then());
+                        if (!tagTtl.isZero() && !tagTtl.isNegative()) {
+                            write = write.then(connection.keyCommands().pExpire(tagKey.duplicate(), tagTtl).then());
+                        }
+                    }
+                    return write;
+                },
+                () -> {
+                    put(key, value, ttl, tags);
+                    return null;
+                });
+    }
+
+    /**
+     * 异步删除单个 key
+     */
+    public CompletableFuture<Void> evictAsync(Object key) {
+        byte[] rawKey = rawKey(key);
+        return withReactiveConnection(connection -> connection.keyCommands().del(ByteBuffer.wrap(rawKey)).then(),
+                () -> {
+                    cacheWriter.remove(getName(), rawKey);
+                    return null;
+                });
+    }
+
+    /**
+     * 连接工厂不支持响应式连接时退化为在调用线程上同步执行
+     */
+    private <T> CompletableFuture<T> withReactiveConnection(Function<ReactiveRedisConnection, Mono<T>> action,
+                                                            Supplier<T> blockingFallback) {
+        if (!(connectionFactory instanceof ReactiveRedisConnectionFactory)) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                future.complete(blockingFallback.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        ReactiveRedisConnectionFactory reactiveFactory = (ReactiveRedisConnectionFactory) connectionFactory;
+        return Mono.usingWhen(Mono.fromSupplier(reactiveFactory::getReactiveConnection),
+                action, ReactiveRedisConnection::closeLater).toFuture();
+    }
+
+    private static Expiration expiration(Duration ttl) {
+        return ttl == null || ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+    }
+
+    private byte[] rawKey(Object key) {
+        return serializeCacheKey(createCacheKey(key));
+    }
+
+    private byte[] rawValue(Object value) {
+        Object storeValue = preProcessCacheValue(value);
+        if (storeValue == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Cache '%s' does not allow 'null' values", getName()));
+        }
+        return serializeCacheValue(storeValue);
+    }
+}
@@ -0,0 +1,109 @@
+package com.lab.chche.cache;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * L1/L2 中实际存储的缓存条目，携带写入版本与来源节点
+ * <p>
+ * tombstone 条目表示该 key 在对应版本被删除，用于拒绝之后到达的更旧的更新。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    private final long version;
+    private final String origin;
+    private final boolean tombstone;
+    // 值编码后的字节数，由 L2 编解码时记录，供 L1 按字节加权；不参与序列化与 equals，0 表示未知
+    private transient int serializedSize;
+
+    @JsonCreator
+    public CacheEntry(@JsonProperty("value") Object value,
+                      @JsonProperty("version") long version,
+                      @JsonProperty("origin") String origin,
+                      @JsonProperty("tombstone") boolean tombstone) {
+        this.value = value;
+        this.version = version;
+        this.origin = origin;
+        this.tombstone = tombstone;
+    }
+
+    public CacheEntry(Object value, long version, String origin) {
+        this(value, version, origin, false);
+    }
+
+    public static CacheEntry tombstone(long version, String origin) {
+        return new CacheEntry(null, version, origin, true);
+    }
+
+    public Object getValue() { return value; }
+    public long getVersion() { return version; }
+    public String getOrigin() { return origin; }
+    public boolean isTombstone() { return tombstone; }
+
+    @JsonIgnore
+    public int getSerializedSize() { return serializedSize; }
+
+    /**
+     * 记录值编码后的字节数，L1 加权时直接使用，不再重新序列化
+     */
+    public void recordSerializedSize(int serializedSize) {
+        this.serializedSize = serializedSize;
+    }
+
+    /**
+     * 空值条目：回源确认 key 不存在后写入的占位
+     */
+    @JsonIgnore
+    public boolean isNegative() {
+        return value == null && !tombstone;
+    }
+
+    /**
+     * 判断本条目是否应覆盖 current：版本更大者胜；版本相同时数据优先于 tombstone，再按来源节点决出唯一结果
+     */
+    public boolean isNewerThan(CacheEntry current) {
+        if (current == null) {
+            return true;
+        }
+        if (version != current.version) {
+            return version > current.version;
+        }
+        if (tombstone != current.tombstone) {
+            return !tombstone;
+        }
+        return compareOrigin(origin, current.origin) > 0;
+    }
+
+    private static int compareOrigin(String a, String b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        }
+        return b == null ? 1 : a.compareTo(b);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheEntry)) {
+            return false;
+        }
+        CacheEntry that = (CacheEntry) o;
+        return version == that.version && tombstone == that.tombstone && Objects.equals(origin, that.origin);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, origin, tombstone);
+    }
+}
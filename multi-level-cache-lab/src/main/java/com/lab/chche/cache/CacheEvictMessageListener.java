@@ -1,53 +1,45 @@
 package com.lab.chche.cache;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+
 @Component
 public class CacheEvictMessageListener implements MessageListener {
 
-    private final CacheManager caffeineCacheManager;
-    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(CacheEvictMessageListener.class);
+
+    private final MultiLevelCacheManager multiLevelCacheManager;
+    private final byte[] nodeId;
 
-    public CacheEvictMessageListener(CacheManager caffeineCacheManager, ObjectMapper objectMapper) {
-        this.caffeineCacheManager = caffeineCacheManager;
-        this.objectMapper = objectMapper;
+    public CacheEvictMessageListener(MultiLevelCacheManager multiLevelCacheManager,
+                                     MultiLevelCacheProperties properties) {
+        this.multiLevelCacheManager = multiLevelCacheManager;
+        this.nodeId = properties.getNodeId().getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
         try {
-            String channel = new String(message.getChannel());
-            String body = new String(message.getBody());
-
-            // 处理缓存清空事件
-            if ("cache:clear".equals(channel)) {
-                String cacheName = body;
-                Cache cache = caffeineCacheManager.getCache(cacheName);
-                if (cache != null) {
-                    cache.clear();
-                }
+            byte[] body = message.getBody();
+            // 本节点发出的消息，本地 L1 已经处理过
+            if (CacheSyncCodec.hasOrigin(body, nodeId)) {
                 return;
             }
-
-            // 原有的缓存失效事件处理
-            if ("cache:evict".equals(channel)) {
-                MultiLevelCacheManager.CacheEvictionEvent event = objectMapper.readValue(
-                        body, MultiLevelCacheManager.CacheEvictionEvent.class);
-
-                // 从本地 L1 缓存中移除
-                Cache cache = caffeineCacheManager.getCache(event.getCacheName());
-                if (cache != null) {
-                    cache.evict(event.getKey());
-                }
+            CacheSyncCodec.InvalidationBatch batch = CacheSyncCodec.decodeInvalidation(body);
+            if (batch == null) {
+                return;
             }
+            // 清空事件清本地 L1，否则批量使本地 L1 中更旧的版本失效
+            multiLevelCacheManager.dispatchRemoteInvalidations(batch);
         } catch (Exception e) {
             // 记录错误但不要传播，防止消息监听器挂掉
-            e.printStackTrace();
+            logger.warn("处理缓存失效消息失败 channel={}", new String(message.getChannel(), StandardCharsets.UTF_8), e);
         }
     }
-}
\ No newline at end of file
+}
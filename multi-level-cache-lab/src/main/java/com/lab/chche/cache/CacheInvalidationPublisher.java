@@ -0,0 +1,194 @@
+package com.lab.chche.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * L1 同步消息发布器
+ * <p>
+ * 每个缓存的失效 key 在一个很短的时间窗口内聚合（或达到批大小上限），去重后作为一条二进制消息发布，
+ * 避免批量写入时每个 key 一次 pub/sub 往返。携带值的更新消息立即发布。
+ */
+public class CacheInvalidationPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
+
+    public static final String UPDATE_CHANNEL = "cache:update";
+    public static final String EVICT_CHANNEL = "cache:evict";
+    public static final String CLEAR_CHANNEL = "cache:clear";
+
+    private static final byte[] UPDATE_CHANNEL_BYTES = UPDATE_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVICT_CHANNEL_BYTES = EVICT_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CLEAR_CHANNEL_BYTES = CLEAR_CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String nodeId;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+    private final ConcurrentMap<String, PendingBatch> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    // 每成功发布一条消息回调一次，参数为缓存名称，用于统计
+    private volatile Consumer<String> publishListener = cacheName -> { };
+
+    public CacheInvalidationPublisher(RedisTemplate<String, Object> redisTemplate, String nodeId,
+                                      Duration batchWindow, int maxBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.nodeId = nodeId;
+        this.batchWindowMillis = Math.max(0L, batchWindow.toMillis());
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 登记一个需要在其他节点失效的 key，实际发布是异步批量进行的
+     *
+     * @param version 失效对应的版本，窗口内同一个 key 只保留最大版本
+     * @param write   失效是否由写入引起，接收方据此把 key 加入 Bloom 过滤器；删除为 false
+     */
+    public void invalidate(String cacheName, Object key, long version, boolean write) {
+        PendingBatch batch = pending.computeIfAbsent(cacheName, PendingBatch::new);
+        boolean first;
+        boolean full;
+        synchronized (batch) {
+            first = batch.keys.isEmpty();
+            Long current = batch.keys.get(key);
+            if (current == null || version >= current) {
+                batch.keys.put(key, version);
+                if (write) {
+                    batch.writes.add(key);
+                } else {
+                    batch.writes.remove(key);
+                }
+            }
+            full = batch.keys.size() >= maxBatchSize;
+        }
+        try {
+            if (full) {
+                scheduler.execute(() -> flush(batch));
+            } else if (first) {
+                scheduler.schedule(() -> flush(batch), batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // 关闭过程中不再聚合，直接在调用线程发出
+            flush(batch);
+        }
+    }
+
+    /**
+     * 立即发布携带值的更新消息
+     */
+    public void publishUpdate(String cacheName, Object key, long version, byte[] value) {
+        publish(cacheName, UPDATE_CHANNEL_BYTES, CacheSyncCodec.encodeUpdate(nodeId, cacheName, key, version, value));
+    }
+
+    /**
+     * 在发布线程上编码并发布更新消息，调用方不等待；用于异步写入，避免在 Redis I/O 线程上执行阻塞的发布
+     */
+    public void publishUpdateAsync(String cacheName, Object key, long version, Supplier<byte[]> value) {
+        try {
+            scheduler.execute(() -> {
+                try {
+                    publishUpdate(cacheName, key, version, value.get());
+                } catch (Exception e) {
+                    logger.warn("发布缓存更新消息失败 cache={} key={}", cacheName, key, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 已关闭，其他节点的 L1 依赖 TTL 过期
+            logger.warn("发布器已关闭，丢弃更新消息 cache={} key={}", cacheName, key);
+        }
+    }
+
+    /**
+     * 立即发布清空消息，尚未发出的单 key 失效已被清空覆盖，直接丢弃
+     */
+    public void publishClear(String cacheName) {
+        PendingBatch batch = pending.get(cacheName);
+        if (batch != null) {
+            synchronized (batch) {
+                batch.keys.clear();
+                batch.writes.clear();
+            }
+        }
+        publish(cacheName, CLEAR_CHANNEL_BYTES, CacheSyncCodec.encodeClear(nodeId, cacheName));
+    }
+
+    public void setPublishListener(Consumer<String> publishListener) {
+        this.publishListener = publishListener;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 停止调度并同步发出所有尚未发布的失效消息
+     */
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.values().forEach(this::flush);
+    }
+
+    private void flush(PendingBatch batch) {
+        Map<Object, Long> keys;
+        Set<Object> writes;
+        synchronized (batch) {
+            if (batch.keys.isEmpty()) {
+                return;
+            }
+            keys = batch.keys;
+            writes = batch.writes;
+            batch.keys = new LinkedHashMap<>();
+            batch.writes = new HashSet<>();
+        }
+        try {
+            publish(batch.cacheName, EVICT_CHANNEL_BYTES,
+                    CacheSyncCodec.encodeInvalidation(nodeId, batch.cacheName, keys, writes));
+        } catch (Exception e) {
+            logger.warn("发布缓存失效消息失败 cache={} keys={}", batch.cacheName, keys.size(), e);
+        }
+    }
+
+    private void publish(String cacheName, byte[] channel, byte[] message) {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, message));
+        publishListener.accept(cacheName);
+    }
+
+    private static class PendingBatch {
+        private final String cacheName;
+        // 合并同一窗口内重复的 key
+        private Map<Object, Long> keys = new LinkedHashMap<>();
+        // keys 中最新一次失效由写入引起的 key
+        private Set<Object> writes = new HashSet<>();
+
+        PendingBatch(String cacheName) {
+            this.cacheName = cacheName;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.lab.chche.cache;
+
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 基于 Redis SET NX PX 的跨节点加载租约，保证同一个 key 只有一个节点回源
+ */
+public class CacheLoadLease {
+
+    private static final String LEASE_PREFIX = "cache:lease:";
+
+    // 只有持有者才能释放租约，避免误删其他节点重新获取的租约
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MultiLevelCacheProperties.LoadLease properties;
+
+    public CacheLoadLease(RedisTemplate<String, Object> redisTemplate,
+                          MultiLevelCacheProperties.LoadLease properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 尝试获取租约
+     *
+     * @return 租约令牌，未获取到时返回 null
+     */
+    public String tryAcquire(String cacheName, Object key) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(leaseKey(cacheName, key), token, properties.getTtl());
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    public void release(String cacheName, Object key, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(leaseKey(cacheName, key)), token);
+    }
+
+    public Duration getWaitTimeout() {
+        return properties.getWaitTimeout();
+    }
+
+    public Duration getPollInterval() {
+        return properties.getPollInterval();
+    }
+
+    private String leaseKey(String cacheName, Object key) {
+        return LEASE_PREFIX + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,188 @@
+package com.lab.chche.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.lab.chche.cache.serializer.CacheValueSerializer;
+import com.lab.chche.cache.serializer.ValueCodec;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 把 {@link MultiLevelCacheProperties.CacheSpec} 转换为 Caffeine 与 Redis 的缓存配置
+ */
+public final class CacheSpecSupport {
+
+    private static final int INITIAL_CAPACITY = 100;
+    // 按字节加权时每个条目的固定开销：Caffeine 节点与 CacheEntry 包装
+    private static final int ENTRY_OVERHEAD = 96;
+    // tombstone 与空值没有值数据，按固定权重计算，失效消息到达时不用估算 key
+    private static final int NULL_VALUE_WEIGHT = 2 * ENTRY_OVERHEAD;
+
+    private CacheSpecSupport() {
+    }
+
+    public static Caffeine<Object, Object> caffeine(MultiLevelCacheProperties.CacheSpec spec) {
+        return caffeine(spec, null);
+    }
+
+    /**
+     * @param codecs L2 的编解码实例，l1-weigher 为 SERIALIZED_SIZE 时用于计算权重，为 null 时改为估算
+     */
+    public static Caffeine<Object, Object> caffeine(MultiLevelCacheProperties.CacheSpec spec,
+                                                    Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getL1MaxBytes() != null) {
+            builder.maximumWeight(spec.getL1MaxBytes().toBytes()).weigher(byteWeigher(spec, codecs));
+        } else if (spec.getL1MaxWeight() > 0) {
+            builder.maximumWeight(spec.getL1MaxWeight()).weigher(weigher(spec, codecs));
+        } else {
+            builder.initialCapacity((int) Math.min(INITIAL_CAPACITY, spec.getL1MaxSize()))
+                    .maximumSize(spec.getL1MaxSize());
+        }
+        if (variableExpiry(spec)) {
+            // 按条目可变的过期时间：普通条目等价于 expireAfterWrite，空值使用 negative-ttl，热点 key 由缓存单独延长
+            long negativeNanos = spec.getNegativeTtl() != null
+                    ? Math.min(spec.getNegativeTtl().toNanos(), spec.getL1Ttl().toNanos()) : spec.getL1Ttl().toNanos();
+            builder.expireAfter(writeExpiry(spec.getL1Ttl().toNanos(), negativeNanos, spec.getTtlJitter()));
+            return builder;
+        }
+        builder.expireAfterWrite(spec.getL1Ttl());
+        if (spec.getL1ExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getL1ExpireAfterAccess());
+        }
+        return builder;
+    }
+
+    /**
+     * L1 是否按条目设置过期时间，只有堆内且未配置 l1-expire-after-access 的缓存支持
+     */
+    public static boolean variableExpiry(MultiLevelCacheProperties.CacheSpec spec) {
+        return spec.getL1Store() == MultiLevelCacheProperties.L1Store.HEAP
+                && spec.getL1ExpireAfterAccess() == null
+                && (spec.getHotKeyTtl() != null || spec.getNegativeTtl() != null || spec.getTtlJitter() > 0);
+    }
+
+    /**
+     * 在 [ttl * (1 - ratio), ttl] 内随机取值，ratio 超出 [0, 1] 时按边界处理
+     */
+    public static long jitter(long ttl, double ratio) {
+        if (ratio <= 0 || ttl <= 0) {
+            return ttl;
+        }
+        return ttl - (long) (ttl * Math.min(ratio, 1.0) * ThreadLocalRandom.current().nextDouble());
+    }
+
+    private static Expiry<Object, Object> writeExpiry(long ttlNanos, long negativeTtlNanos, double jitter) {
+        return new Expiry<Object, Object>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return jitter(isNegative(value) ? negativeTtlNanos : ttlNanos, jitter);
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return jitter(isNegative(value) ? negativeTtlNanos : ttlNanos, jitter);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    public static RedisCacheConfiguration redisConfiguration(RedisCacheConfiguration base,
+                                                             MultiLevelCacheProperties.CacheSpec spec,
+                                                             Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        return base.entryTtl(spec.getL2Ttl())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(serializer(spec, codecs)));
+    }
+
+    public static RedisSerializer<Object> serializer(MultiLevelCacheProperties.CacheSpec spec,
+                                                     Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        int compressThreshold = spec.getCompressThreshold() != null
+                ? (int) Math.min(Integer.MAX_VALUE, spec.getCompressThreshold().toBytes()) : 0;
+        return new CacheValueSerializer(codecs, spec.getCodec(), compressThreshold);
+    }
+
+    private static boolean isNegative(Object value) {
+        return value instanceof CacheEntry && ((CacheEntry) value).isNegative();
+    }
+
+    /**
+     * 堆内 L1 的权重是否为字节数
+     */
+    public static boolean weighsBytes(MultiLevelCacheProperties.CacheSpec spec) {
+        if (spec.getL1Store() != MultiLevelCacheProperties.L1Store.HEAP) {
+            return false;
+        }
+        return spec.getL1MaxBytes() != null || (spec.getL1MaxWeight() > 0
+                && (spec.getL1Weigher() == MultiLevelCacheProperties.L1Weigher.ESTIMATED_SIZE
+                || spec.getL1Weigher() == MultiLevelCacheProperties.L1Weigher.SERIALIZED_SIZE));
+    }
+
+    private static Weigher<Object, Object> weigher(MultiLevelCacheProperties.CacheSpec spec,
+                                                   Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        switch (spec.getL1Weigher()) {
+            case COLLECTION_SIZE:
+                return (key, value) -> collectionWeight(value);
+            case ESTIMATED_SIZE:
+            case SERIALIZED_SIZE:
+                return byteWeigher(spec, codecs);
+            default:
+                return (key, value) -> 1;
+        }
+    }
+
+    private static Weigher<Object, Object> byteWeigher(MultiLevelCacheProperties.CacheSpec spec,
+                                                       Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        if (spec.getL1Weigher() != MultiLevelCacheProperties.L1Weigher.SERIALIZED_SIZE || codecs == null) {
+            return (key, value) -> isNullValue(value) ? NULL_VALUE_WEIGHT
+                    : byteWeight(ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(
+                            value instanceof CacheEntry ? ((CacheEntry) value).getValue() : value));
+        }
+        // 不压缩，权重反映值本身的数据量；写入或读取 L2 时已记录编码大小的条目直接使用，只有未经过 L2 的条目重新编码
+        RedisSerializer<Object> serializer = new CacheValueSerializer(codecs, spec.getCodec(), 0);
+        return (key, value) -> {
+            if (isNullValue(value)) {
+                return NULL_VALUE_WEIGHT;
+            }
+            long valueSize = value instanceof CacheEntry ? ((CacheEntry) value).getSerializedSize() : 0;
+            if (valueSize <= 0) {
+                try {
+                    valueSize = serializer.serialize(value).length;
+                } catch (RuntimeException e) {
+                    valueSize = ObjectSizeEstimator.estimate(value);
+                }
+            }
+            return byteWeight(ObjectSizeEstimator.estimate(key) + valueSize);
+        };
+    }
+
+    private static boolean isNullValue(Object value) {
+        return value instanceof CacheEntry && ((CacheEntry) value).getValue() == null;
+    }
+
+    private static int byteWeight(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + bytes);
+    }
+
+    private static int collectionWeight(Object value) {
+        Object unwrapped = value instanceof CacheEntry ? ((CacheEntry) value).getValue() : value;
+        if (unwrapped instanceof Collection) {
+            return ((Collection<?>) unwrapped).size() + 1;
+        }
+        if (unwrapped instanceof Map) {
+            return ((Map<?, ?>) unwrapped).size() + 1;
+        }
+        return 1;
+    }
+}
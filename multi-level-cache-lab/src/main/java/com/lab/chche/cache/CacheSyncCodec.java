@@ -0,0 +1,430 @@
+package com.lab.chche.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存同步消息的紧凑二进制编解码
+ * <p>
+ * 帧头：magic(1) | type(1) | origin(len16 + utf8) | cacheName(len16 + utf8)
+ * <ul>
+ *     <li>INVALIDATE：count(4) | (key | version(8) | write(1))...，write 为 1 表示 key 被写入，0 表示被删除</li>
+ *     <li>CLEAR：count(4)，固定为 0</li>
+ *     <li>UPDATE：key | version(8) | value(len32 + bytes)</li>
+ * </ul>
+ * key 带类型标记编码，保证 Long/Integer/String 在接收端还原为相同类型，L1 才能按原 key 命中。
+ * <p>
+ * 消息来自 pub/sub 与 Redis 中的集合，解码时不信任其中的长度与数量：超出剩余字节的帧按格式错误拒绝。
+ * 复合 key 只允许由 {@link #KEY_CLASSES} 中的类型组成，写入与读取两端都按同一名单校验，
+ * 不会反序列化名单以外的类。
+ */
+public final class CacheSyncCodec {
+
+    static final byte MAGIC = (byte) 0xC5;
+
+    static final byte TYPE_INVALIDATE = 1;
+    static final byte TYPE_CLEAR = 2;
+    static final byte TYPE_UPDATE = 3;
+
+    private static final byte KEY_STRING = 1;
+    private static final byte KEY_LONG = 2;
+    private static final byte KEY_INT = 3;
+    private static final byte KEY_SERIALIZED = 4;
+
+    // 一条失效记录至少占用的字节：tag(1) + int key(4) + version(8) + write(1)
+    private static final int MIN_INVALIDATION_ENTRY = 14;
+
+    /**
+     * 复合 key（SimpleKey）及其参数允许的类型
+     */
+    static final Set<String> KEY_CLASSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "org.springframework.cache.interceptor.SimpleKey",
+            "[Ljava.lang.Object;",
+            "java.lang.Number",
+            "java.lang.Long",
+            "java.lang.Integer",
+            "java.lang.Short",
+            "java.lang.Byte",
+            "java.lang.Boolean",
+            "java.lang.Character",
+            "java.lang.Double",
+            "java.lang.Float")));
+
+    private CacheSyncCodec() {
+    }
+
+    /**
+     * @param keys   key 到失效版本的映射
+     * @param writes keys 中因写入而失效的 key，其余视为删除
+     */
+    public static byte[] encodeInvalidation(String origin, String cacheName, Map<Object, Long> keys,
+                                            Set<?> writes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + keys.size() * 24);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, TYPE_INVALIDATE, origin, cacheName);
+            out.writeInt(keys.size());
+            for (Map.Entry<Object, Long> entry : keys.entrySet()) {
+                writeKey(out, entry.getKey());
+                out.writeLong(entry.getValue());
+                out.writeBoolean(writes.contains(entry.getKey()));
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] encodeClear(String origin, String cacheName) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, TYPE_CLEAR, origin, cacheName);
+            out.writeInt(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] encodeUpdate(String origin, String cacheName, Object key, long version, byte[] value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + value.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, TYPE_UPDATE, origin, cacheName);
+            writeKey(out, key);
+            out.writeLong(version);
+            out.writeInt(value.length);
+            out.write(value);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 直接比较帧头中的 origin 字节，本节点发出的消息无需完整解码即可丢弃
+     */
+    public static boolean hasOrigin(byte[] frame, byte[] origin) {
+        if (frame.length < 4 + origin.length || frame[0] != MAGIC) {
+            return false;
+        }
+        int length = ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF);
+        if (length != origin.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (frame[4 + i] != origin[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 解码后的批次，不是失效/清空帧时返回 null
+     */
+    public static InvalidationBatch decodeInvalidation(byte[] frame) {
+        if (!isFrame(frame)) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(frame);
+        in.get();
+        byte type = in.get();
+        if (type != TYPE_INVALIDATE && type != TYPE_CLEAR) {
+            return null;
+        }
+        String origin = readString(in);
+        String cacheName = readString(in);
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / MIN_INVALIDATION_ENTRY) {
+            throw new IllegalArgumentException("Invalid key count: " + count);
+        }
+        List<Object> keys = count == 0 ? Collections.emptyList() : new ArrayList<>(count);
+        long[] versions = new long[count];
+        boolean[] writes = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            keys.add(readKey(in));
+            versions[i] = in.getLong();
+            writes[i] = in.get() != 0;
+        }
+        return new InvalidationBatch(type == TYPE_CLEAR, origin, cacheName, keys, versions, writes);
+    }
+
+    /**
+     * @return 解码后的更新，不是更新帧时返回 null；value 保持序列化形式，由缓存在确认版本更新后再反序列化
+     */
+    public static UpdateFrame decodeUpdate(byte[] frame) {
+        if (!isFrame(frame) || frame[1] != TYPE_UPDATE) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(frame, 2, frame.length - 2);
+        String origin = readString(in);
+        String cacheName = readString(in);
+        Object key = readKey(in);
+        long version = in.getLong();
+        int length = checkLength(in, in.getInt());
+        byte[] value = Arrays.copyOfRange(frame, in.position(), in.position() + length);
+        return new UpdateFrame(origin, cacheName, key, version, value);
+    }
+
+    /**
+     * 编码一组 key：count(4) | key...，用于保存热点 key 快照
+     */
+    static byte[] encodeKeys(Collection<?> keys) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + keys.size() * 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(keys.size());
+            for (Object key : keys) {
+                writeKey(out, key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码 {@link #encodeKeys} 的结果，key 类型同样受 {@link #KEY_CLASSES} 限制
+     */
+    static List<Object> decodeKeys(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int count = in.getInt();
+        // 最短的 key 为 tag(1) + int(4)
+        if (count < 0 || count > in.remaining() / 5) {
+            throw new IllegalArgumentException("Invalid key count: " + count);
+        }
+        List<Object> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(readKey(in));
+        }
+        return keys;
+    }
+
+    private static boolean isFrame(byte[] frame) {
+        return frame != null && frame.length >= 2 && frame[0] == MAGIC;
+    }
+
+    private static void writeHeader(DataOutputStream out, byte type, String origin, String cacheName)
+            throws IOException {
+        out.writeByte(MAGIC);
+        out.writeByte(type);
+        writeString(out, origin);
+        writeString(out, cacheName);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = checkLength(in, in.getShort() & 0xFFFF);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * 单独编码一个 key，与消息中的 key 编码相同；用作标签集合的成员
+     */
+    static byte[] encodeKey(Object key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeKey(out, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object decodeKey(byte[] bytes) {
+        return readKey(ByteBuffer.wrap(bytes));
+    }
+
+    private static int checkLength(ByteBuffer in, int length) {
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid length: " + length + ", remaining " + in.remaining());
+        }
+        return length;
+    }
+
+    static void writeKey(DataOutputStream out, Object key) throws IOException {
+        if (key instanceof String) {
+            byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(KEY_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (key instanceof Long) {
+            out.writeByte(KEY_LONG);
+            out.writeLong((Long) key);
+        } else if (key instanceof Integer) {
+            out.writeByte(KEY_INT);
+            out.writeInt((Integer) key);
+        } else if (key instanceof Serializable) {
+            // 复合 key（如 SimpleKey）走 JDK 序列化，出现频率低；名单以外的类型在写入时就拒绝
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new KeyObjectOutputStream(bytes)) {
+                oos.writeObject(key);
+            }
+            out.writeByte(KEY_SERIALIZED);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        } else {
+            throw new IllegalArgumentException("Unsupported cache key type: " + key.getClass().getName());
+        }
+    }
+
+    static Object readKey(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case KEY_STRING: {
+                int length = checkLength(in, in.getInt());
+                String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+                        StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+                return value;
+            }
+            case KEY_LONG:
+                return in.getLong();
+            case KEY_INT:
+                return in.getInt();
+            case KEY_SERIALIZED: {
+                int length = checkLength(in, in.getInt());
+                try (ObjectInputStream ois = new KeyObjectInputStream(new ByteArrayInputStream(
+                        in.array(), in.arrayOffset() + in.position(), length))) {
+                    in.position(in.position() + length);
+                    return ois.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            default:
+                throw new IllegalArgumentException("Unknown cache key tag: " + tag);
+        }
+    }
+
+    private static void checkKeyClass(String className) {
+        if (!KEY_CLASSES.contains(className)) {
+            throw new IllegalArgumentException("Unsupported cache key type: " + className);
+        }
+    }
+
+    /**
+     * 只写出名单内类型的 JDK 序列化流
+     */
+    private static final class KeyObjectOutputStream extends ObjectOutputStream {
+        KeyObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void annotateClass(Class<?> type) {
+            checkKeyClass(type.getName());
+        }
+
+        @Override
+        protected void annotateProxyClass(Class<?> type) {
+            checkKeyClass(type.getName());
+        }
+    }
+
+    /**
+     * 解析类之前先按名单校验，名单以外的类不会被加载或实例化
+     */
+    private static final class KeyObjectInputStream extends ObjectInputStream {
+        KeyObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            checkKeyClass(desc.getName());
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) {
+            throw new IllegalArgumentException("Unsupported cache key type: proxy");
+        }
+    }
+
+    /**
+     * 解码后的失效批次
+     */
+    public static class InvalidationBatch {
+        private final boolean clear;
+        private final String origin;
+        private final String cacheName;
+        private final List<Object> keys;
+        private final long[] versions;
+        private final boolean[] writes;
+
+        public InvalidationBatch(boolean clear, String origin, String cacheName, List<Object> keys,
+                                 long[] versions, boolean[] writes) {
+            this.clear = clear;
+            this.origin = origin;
+            this.cacheName = cacheName;
+            this.keys = keys;
+            this.versions = versions;
+            this.writes = writes;
+        }
+
+        public boolean isClear() { return clear; }
+        public String getOrigin() { return origin; }
+        public String getCacheName() { return cacheName; }
+        public List<Object> getKeys() { return keys; }
+        public long getVersion(int index) { return versions[index]; }
+        public boolean isWrite(int index) { return writes[index]; }
+    }
+
+    /**
+     * 解码后的单 key 更新
+     */
+    public static class UpdateFrame {
+        private final String origin;
+        private final String cacheName;
+        private final Object key;
+        private final long version;
+        private final byte[] value;
+
+        public UpdateFrame(String origin, String cacheName, Object key, long version, byte[] value) {
+            this.origin = origin;
+            this.cacheName = cacheName;
+            this.key = key;
+            this.version = version;
+            this.value = value;
+        }
+
+        public String getOrigin() { return origin; }
+        public String getCacheName() { return cacheName; }
+        public Object getKey() { return key; }
+        public long getVersion() { return version; }
+        public byte[] getValue() { return value; }
+    }
+}
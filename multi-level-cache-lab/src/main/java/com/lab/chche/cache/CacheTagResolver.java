@@ -0,0 +1,22 @@
+package com.lab.chche.cache;
+
+import java.util.Collection;
+
+/**
+ * 为写入缓存的条目生成标签，注册为 Spring Bean 后由多级缓存自动发现
+ * <p>
+ * 带标签写入的 key 会记录在 Redis 的标签集合中，
+ * {@link MultiLevelCacheManager#evictByTag(String, String...)} 只失效这些 key，而不是清空整个缓存。
+ */
+public interface CacheTagResolver {
+
+    /**
+     * 适用的缓存名称
+     */
+    Collection<String> getCacheNames();
+
+    /**
+     * 条目所属的标签，如 user:42；没有标签时返回空集合
+     */
+    Collection<String> tags(Object key, Object value);
+}
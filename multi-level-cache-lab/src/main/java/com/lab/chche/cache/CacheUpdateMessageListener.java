@@ -1,43 +1,46 @@
 package com.lab.chche.cache;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+
 @Component
 public class CacheUpdateMessageListener implements MessageListener {
 
-    private final CacheManager caffeineCacheManager;
-    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(CacheUpdateMessageListener.class);
+
+    private final MultiLevelCacheManager multiLevelCacheManager;
+    private final byte[] nodeId;
 
-    public CacheUpdateMessageListener(CacheManager caffeineCacheManager, ObjectMapper objectMapper) {
-        this.caffeineCacheManager = caffeineCacheManager;
-        this.objectMapper = objectMapper;
+    public CacheUpdateMessageListener(MultiLevelCacheManager multiLevelCacheManager,
+                                      MultiLevelCacheProperties properties) {
+        this.multiLevelCacheManager = multiLevelCacheManager;
+        this.nodeId = properties.getNodeId().getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
         try {
-            String channel = new String(message.getChannel());
-            if (!"cache:update".equals(channel)) {
+            byte[] body = message.getBody();
+            // 本节点发出的更新，本地 L1 已是最新版本
+            if (CacheSyncCodec.hasOrigin(body, nodeId)) {
                 return;
             }
-
-            String json = new String(message.getBody());
-            MultiLevelCacheManager.CacheUpdateEvent event = objectMapper.readValue(
-                json, MultiLevelCacheManager.CacheUpdateEvent.class);
-
-            // Update local L1 cache
-            Cache cache = caffeineCacheManager.getCache(event.getCacheName());
-            if (cache != null) {
-                cache.put(event.getKey(), event.getValue());
+            CacheSyncCodec.UpdateFrame frame = CacheSyncCodec.decodeUpdate(body);
+            if (frame == null) {
+                return;
             }
+
+            // 交给 key 所在段的处理线程按版本更新本地 L1 缓存
+            multiLevelCacheManager.dispatchRemoteUpdate(frame);
         } catch (Exception e) {
-            // Log error but don't propagate to prevent message listener from dying
-            e.printStackTrace();
+            // 不向容器抛出，避免影响后续消息
+            logger.warn("处理缓存更新消息失败 channel={}", new String(message.getChannel(), StandardCharsets.UTF_8), e);
         }
     }
 }
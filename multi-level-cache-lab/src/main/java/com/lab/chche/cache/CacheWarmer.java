@@ -0,0 +1,241 @@
+package com.lab.chche.cache;
+
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动预热与停机时的热点 key 快照
+ * <p>
+ * 启动时按各缓存的 warmup 配置收集 key：上次停机保存的热点 key、{@link CacheWarmupSource#warmupKeys()}、
+ * SCAN 得到的 L2 key，按批 MGET 后写入 L1，同一时刻最多 parallelism 个批次在执行。
+ * 停机时把各缓存当前的热点 key 写入 Redis，供下一个实例预热。
+ */
+public class CacheWarmer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private static final String SNAPSHOT_KEY_PREFIX = "multilevel:warmup:hotkeys:";
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, TIMED_OUT, FAILED, DISABLED
+    }
+
+    private final MultiLevelCacheManager cacheManager;
+    private final RedisConnectionFactory connectionFactory;
+    private final MultiLevelCacheProperties properties;
+
+    private volatile State state = State.PENDING;
+    private final AtomicInteger totalBatches = new AtomicInteger();
+    private final AtomicInteger completedBatches = new AtomicInteger();
+    private final AtomicLong loadedEntries = new AtomicLong();
+    // 每个缓存已写入 L1 的条目数
+    private final Map<String, AtomicLong> loadedByCache = new ConcurrentHashMap<>();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public CacheWarmer(MultiLevelCacheManager cacheManager, RedisConnectionFactory connectionFactory,
+                       MultiLevelCacheProperties properties) {
+        this.cacheManager = cacheManager;
+        this.connectionFactory = connectionFactory;
+        this.properties = properties;
+    }
+
+    /**
+     * 执行预热，阻塞到全部批次完成或超时
+     */
+    public void warmup() {
+        MultiLevelCacheProperties.Warmup config = properties.getWarmup();
+        if (!config.isEnabled()) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getParallelism()), r -> {
+            Thread thread = new Thread(r, "cache-warmup-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            properties.getCaches().forEach((name, spec) -> {
+                if (spec.getWarmup() != MultiLevelCacheProperties.WarmupMode.NONE && spec.isL1Enabled()) {
+                    batches.addAll(submit(name, spec, config.getBatchSize(), executor));
+                }
+            });
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+                    .get(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            state = State.COMPLETED;
+        } catch (TimeoutException e) {
+            state = State.TIMED_OUT;
+            logger.warn("缓存预热超时 timeout={} 已完成批次={}/{}",
+                    config.getTimeout(), completedBatches.get(), totalBatches.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.FAILED;
+        } catch (ExecutionException | RuntimeException e) {
+            // 预热失败不影响启动，缓存按正常流程逐步填充
+            state = State.FAILED;
+            logger.warn("缓存预热失败", e);
+        } finally {
+            executor.shutdownNow();
+            finishedAt = System.currentTimeMillis();
+        }
+        logger.info("缓存预热结束 state={} entries={} elapsed={}ms",
+                state, loadedEntries.get(), finishedAt - startedAt);
+    }
+
+    private List<CompletableFuture<Void>> submit(String name, MultiLevelCacheProperties.CacheSpec spec,
+                                                 int batchSize, ExecutorService executor) {
+        Cache cache = cacheManager.getCache(name);
+        if (!(cache instanceof MultiLevelCacheManager.MultiLevelCache)) {
+            return new ArrayList<>();
+        }
+        MultiLevelCacheManager.MultiLevelCache multiLevelCache = (MultiLevelCacheManager.MultiLevelCache) cache;
+        CacheWarmupSource source = cacheManager.warmupSource(name);
+        List<Object> keys = new ArrayList<>(collectKeys(multiLevelCache, spec, source));
+        AtomicLong loaded = loadedByCache.computeIfAbsent(name, k -> new AtomicLong());
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < keys.size(); from += size) {
+            List<Object> batch = keys.subList(from, Math.min(keys.size(), from + size));
+            totalBatches.incrementAndGet();
+            batches.add(CompletableFuture.runAsync(() -> {
+                int count = multiLevelCache.preload(batch, source);
+                loaded.addAndGet(count);
+                loadedEntries.addAndGet(count);
+                completedBatches.incrementAndGet();
+            }, executor));
+        }
+        logger.info("缓存预热开始 cache={} keys={} batches={}", name, keys.size(), batches.size());
+        return batches;
+    }
+
+    private Set<Object> collectKeys(MultiLevelCacheManager.MultiLevelCache cache,
+                                    MultiLevelCacheProperties.CacheSpec spec, CacheWarmupSource source) {
+        int maxKeys = spec.getWarmupMaxKeys();
+        Set<Object> keys = new LinkedHashSet<>();
+        addAll(keys, readSnapshot(cache), maxKeys);
+        if (source != null) {
+            addAll(keys, source.warmupKeys(), maxKeys);
+        }
+        if (spec.getWarmup() == MultiLevelCacheProperties.WarmupMode.SCAN && keys.size() < maxKeys) {
+            Cache l2Cache = cacheManager.l2Cache(cache.getName());
+            if (l2Cache instanceof BulkRedisCache) {
+                for (String redisKey : ((BulkRedisCache) l2Cache).scanKeys(maxKeys - keys.size())) {
+                    keys.add(source != null ? source.parseKey(redisKey) : redisKey);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static void addAll(Set<Object> keys, Collection<?> candidates, int maxKeys) {
+        for (Object key : candidates) {
+            if (keys.size() >= maxKeys) {
+                return;
+            }
+            keys.add(key);
+        }
+    }
+
+    private Collection<?> readSnapshot(MultiLevelCacheManager.MultiLevelCache cache) {
+        byte[] bytes;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            bytes = connection.stringCommands().get(snapshotKey(cache.getName()));
+        }
+        if (bytes == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return CacheSyncCodec.decodeKeys(bytes);
+        } catch (RuntimeException e) {
+            // 编码方式变更后旧快照无法读取，忽略即可
+            logger.warn("热点 key 快照无法解析 cache={}", cache.getName(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 停机时保存各缓存当前的热点 key
+     */
+    @Override
+    public void destroy() {
+        MultiLevelCacheProperties.Warmup config = properties.getWarmup();
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof MultiLevelCacheManager.MultiLevelCache)) {
+                continue;
+            }
+            MultiLevelCacheManager.MultiLevelCache multiLevelCache = (MultiLevelCacheManager.MultiLevelCache) cache;
+            Set<Object> hotKeys = multiLevelCache.getHotKeys().keySet();
+            if (hotKeys.isEmpty()) {
+                continue;
+            }
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.stringCommands().pSetEx(snapshotKey(name),
+                        config.getHotKeySnapshotTtl().toMillis(), CacheSyncCodec.encodeKeys(hotKeys));
+            } catch (RuntimeException e) {
+                logger.warn("保存热点 key 快照失败 cache={}", name, e);
+            }
+        }
+    }
+
+    private static byte[] snapshotKey(String cacheName) {
+        return (SNAPSHOT_KEY_PREFIX + cacheName).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否已经结束（完成、超时、失败或未开启），结束后不再阻止应用就绪
+     */
+    public boolean isFinished() {
+        return state != State.PENDING && state != State.RUNNING;
+    }
+
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("batches", completedBatches.get() + "/" + totalBatches.get());
+        progress.put("entries", loadedEntries.get());
+        Map<String, Long> caches = new LinkedHashMap<>();
+        loadedByCache.forEach((name, count) -> caches.put(name, count.get()));
+        progress.put("caches", caches);
+        if (startedAt > 0) {
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            progress.put("elapsedMillis", end - startedAt);
+        }
+        return progress;
+    }
+}
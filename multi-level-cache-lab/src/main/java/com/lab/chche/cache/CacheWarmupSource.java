@@ -0,0 +1,45 @@
+package com.lab.chche.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 为指定缓存提供全量已知 key 的数据源，注册为 Spring Bean 后由多级缓存自动发现
+ * <p>
+ * 开启 bloom-filter 的缓存用这些 key 构建 Bloom 过滤器，拦截一定不存在的 key 的回源请求；
+ * 开启 warmup 的缓存在启动时预热 {@link #warmupKeys()}，L2 中没有的交给 {@link #load(Collection)} 加载。
+ */
+public interface CacheWarmupSource {
+
+    /**
+     * 对应的缓存名称
+     */
+    String getCacheName();
+
+    /**
+     * 当前所有存在的 key
+     */
+    Collection<?> keys();
+
+    /**
+     * 启动时需要预热到 L1 的 key，默认不额外指定
+     */
+    default Collection<?> warmupKeys() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 加载预热时 L2 中不存在的 key，返回的值写入两级缓存；默认不加载
+     */
+    default Map<?, ?> load(Collection<?> keys) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 把 SCAN 得到的 Redis key（已去掉缓存前缀）还原为缓存 key，默认直接使用字符串
+     */
+    default Object parseKey(String redisKey) {
+        return redisKey;
+    }
+}
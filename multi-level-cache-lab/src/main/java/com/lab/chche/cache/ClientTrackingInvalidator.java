@@ -0,0 +1,146 @@
+package com.lab.chche.cache;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateAdapter;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 Redis 6 CLIENT TRACKING（RESP3 广播模式）的 L1 失效
+ * <p>
+ * 单独建立一条 RESP3 连接，对每个被跟踪缓存的 key 前缀执行 CLIENT TRACKING ON BCAST PREFIX，
+ * 任何客户端修改、删除或因过期淘汰这些 key 时，Redis 都会在这条连接上推送 invalidate 消息。
+ * 写入方不再发布 pub/sub 消息，也不存在订阅者尚未订阅而漏掉消息的窗口。
+ * <p>
+ * 使用广播模式而不是默认的按 key 跟踪：L2 读取走连接池中的任意连接，按 key 跟踪要求读取与跟踪在同一连接上。
+ * 广播模式下本节点自己的写入也会收到推送，刚写入的 L1 条目会被清掉，下次读取从 L2 回填。
+ * 连接断开期间的推送会丢失，重连后重新开启跟踪并清空被跟踪缓存的 L1。
+ * <p>
+ * 需要 Redis 6 及以上的单机或哨兵部署，集成测试见 ClientTrackingInvalidatorIT（mvn -Predis-it verify）。
+ */
+public class ClientTrackingInvalidator implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientTrackingInvalidator.class);
+
+    private static final String INVALIDATE = "invalidate";
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final MultiLevelCacheManager cacheManager;
+    // 缓存名称到 L2 key 前缀
+    private final Map<String, String> prefixes = new LinkedHashMap<>();
+    private volatile StatefulRedisConnection<String, String> connection;
+    private final RedisConnectionStateListener reconnectListener = new RedisConnectionStateAdapter() {
+        @Override
+        public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+            if (handler == connection) {
+                onReconnected();
+            }
+        }
+    };
+
+    public ClientTrackingInvalidator(LettuceConnectionFactory connectionFactory, MultiLevelCacheManager cacheManager) {
+        this.connectionFactory = connectionFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String name : cacheManager.getTrackedCacheNames()) {
+            Cache l2Cache = cacheManager.l2Cache(name);
+            if (l2Cache instanceof RedisCache) {
+                prefixes.put(name, ((RedisCache) l2Cache).getCacheConfiguration().getKeyPrefixFor(name));
+            }
+        }
+        if (prefixes.isEmpty()) {
+            return;
+        }
+        AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+        if (!(client instanceof RedisClient)) {
+            throw new IllegalStateException("CLIENT TRACKING 只支持单机或哨兵模式的 Redis");
+        }
+        RedisClient redisClient = (RedisClient) client;
+        redisClient.addListener(reconnectListener);
+        StatefulRedisConnection<String, String> connection = redisClient.connect(StringCodec.UTF8);
+        connection.addListener(this::onPush);
+        connection.sync().clientTracking(trackingArgs());
+        this.connection = connection;
+        logger.info("CLIENT TRACKING 已开启 prefixes={}", prefixes.values());
+    }
+
+    private TrackingArgs trackingArgs() {
+        return TrackingArgs.Builder.enabled().bcast().prefixes(prefixes.values().toArray(new String[0]));
+    }
+
+    private void onReconnected() {
+        // 重连后跟踪状态已丢失，断开期间的失效也无从得知，只能整体清空
+        connection.async().clientTracking(trackingArgs()).whenComplete((ok, e) -> {
+            if (e != null) {
+                logger.warn("重连后重新开启 CLIENT TRACKING 失败", e);
+            }
+        });
+        prefixes.keySet().forEach(this::clearL1);
+        logger.info("Redis 重连，已清空被跟踪缓存的 L1 caches={}", prefixes.keySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onPush(PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (!(keys instanceof List)) {
+            // FLUSHDB / FLUSHALL 推送的 key 列表为空
+            prefixes.keySet().forEach(this::clearL1);
+            return;
+        }
+        for (Object key : (List<Object>) keys) {
+            invalidate((String) key);
+        }
+    }
+
+    private void invalidate(String redisKey) {
+        for (Map.Entry<String, String> entry : prefixes.entrySet()) {
+            if (redisKey.startsWith(entry.getValue())) {
+                MultiLevelCacheManager.MultiLevelCache cache = cacheManager.existingCache(entry.getKey());
+                if (cache != null) {
+                    cache.applyTrackedInvalidation(redisKey.substring(entry.getValue().length()));
+                }
+                return;
+            }
+        }
+    }
+
+    private void clearL1(String cacheName) {
+        MultiLevelCacheManager.MultiLevelCache cache = cacheManager.existingCache(cacheName);
+        if (cache != null) {
+            cache.applyRemoteClear();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        StatefulRedisConnection<String, String> connection = this.connection;
+        if (connection != null) {
+            connectionFactory.getRequiredNativeClient().removeListener(reconnectListener);
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.lab.chche.cache;
+
+/**
+ * Count-Min Sketch，估算 key 的访问频率
+ * <p>
+ * 4 行计数器，估算值取各行最小值；累计增加次数达到 10 倍宽度后所有计数减半，让频率随时间衰减。
+ * 计数器没有加锁，并发自增时可能丢失少量计数，对估算热点来说可以接受。
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x97CB3127, 0x2B7E1516, 0x6A09E667, 0xBB67AE85};
+
+    private final int[] table;
+    private final int mask;
+    private final int width;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedKeys 预计需要区分的 key 数量，决定每行的宽度
+     */
+    public FrequencySketch(int expectedKeys) {
+        int w = Integer.highestOneBit(Math.max(64, expectedKeys - 1) << 1);
+        this.width = w;
+        this.mask = w - 1;
+        this.table = new int[DEPTH * w];
+        this.sampleSize = 10 * w;
+    }
+
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * width + indexOf(hash, i);
+            if (table[index] < Integer.MAX_VALUE) {
+                table[index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[i * width + indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * 所有计数减半，不重新分配计数器表；调用方可在自己的时间窗口结束时主动衰减
+     */
+    public synchronized void halve() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+        additions = 0;
+    }
+
+    private synchronized void age() {
+        if (additions >= sampleSize) {
+            halve();
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x85EBCA6B;
+        return h ^ (h >>> 15);
+    }
+}
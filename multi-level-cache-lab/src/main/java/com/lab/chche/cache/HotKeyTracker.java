@@ -0,0 +1,97 @@
+package com.lab.chche.cache;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按采样的访问频率维护单个缓存的 Top-K 热点 key
+ * <p>
+ * 每 sampleRate 次读取记录一次到 {@link FrequencySketch}；新 key 的估算频率超过当前最冷的热点 key 时替换之。
+ */
+public class HotKeyTracker {
+
+    // 至少被采样到这么多次才可能成为热点，避免冷启动时前 K 个 key 直接入选
+    private static final int MIN_FREQUENCY = 3;
+
+    private final FrequencySketch sketch;
+    private final int topK;
+    private final int sampleMask;
+    private final Set<Object> hotKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param sampleRate 采样间隔，向上取整为 2 的幂，1 表示每次读取都记录
+     */
+    public HotKeyTracker(int topK, int sampleRate) {
+        this.topK = Math.max(1, topK);
+        this.sampleMask = Integer.highestOneBit(Math.max(1, sampleRate) * 2 - 1) - 1;
+        this.sketch = new FrequencySketch(this.topK * 64);
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @return key 是否因本次读取新成为热点
+     */
+    public boolean record(Object key) {
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return false;
+        }
+        sketch.increment(key);
+        if (hotKeys.contains(key)) {
+            return false;
+        }
+        int frequency = sketch.frequency(key);
+        return frequency >= MIN_FREQUENCY && offer(key, frequency);
+    }
+
+    private synchronized boolean offer(Object key, int frequency) {
+        if (hotKeys.contains(key)) {
+            return false;
+        }
+        if (hotKeys.size() < topK) {
+            hotKeys.add(key);
+            return true;
+        }
+        Object coldest = null;
+        int coldestFrequency = Integer.MAX_VALUE;
+        for (Object hotKey : hotKeys) {
+            int f = sketch.frequency(hotKey);
+            if (f < coldestFrequency) {
+                coldest = hotKey;
+                coldestFrequency = f;
+            }
+        }
+        if (coldest == null || frequency <= coldestFrequency) {
+            return false;
+        }
+        hotKeys.remove(coldest);
+        hotKeys.add(key);
+        return true;
+    }
+
+    public boolean isHot(Object key) {
+        return hotKeys.contains(key);
+    }
+
+    /**
+     * @return 热点 key 到估算采样频率的映射，按频率从高到低排列
+     */
+    public Map<Object, Integer> snapshot() {
+        List<Map.Entry<Object, Integer>> entries = new ArrayList<>();
+        for (Object key : hotKeys) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, sketch.frequency(key)));
+        }
+        entries.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        Map<Object, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<Object, Integer> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.lab.chche.cache;
+
+/**
+ * L2 命中后的 L1 准入：同一个 key 在一个窗口内第 minHits 次从 L2 读到时才写入 L1
+ * <p>
+ * 批量导出、按 id 遍历这类只读一次的 key 留在 L2，不会挤掉 L1 中真正的热点。
+ * 命中次数记录在 Count-Min Sketch 中，内存占用与 key 数量无关；窗口结束时所有计数减半（与 Caffeine 的衰减方式相同），
+ * 上一个窗口的命中只保留一半，计数器表在整个生命周期中只分配一次。
+ */
+final class L1AdmissionFilter {
+
+    private final int minHits;
+    private final long windowNanos;
+    private final FrequencySketch sketch;
+    private volatile long windowStart;
+
+    L1AdmissionFilter(int minHits, long windowNanos, int expectedKeys) {
+        this.minHits = minHits;
+        this.windowNanos = Math.max(1L, windowNanos);
+        this.sketch = new FrequencySketch(expectedKeys);
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * 记录一次 L2 命中
+     *
+     * @return 是否写入 L1
+     */
+    boolean admit(Object key) {
+        ageIfWindowEnded();
+        sketch.increment(key);
+        return sketch.frequency(key) >= minHits;
+    }
+
+    private void ageIfWindowEnded() {
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos) {
+            synchronized (this) {
+                if (now - windowStart >= windowNanos) {
+                    sketch.halve();
+                    windowStart = now;
+                }
+            }
+        }
+    }
+}
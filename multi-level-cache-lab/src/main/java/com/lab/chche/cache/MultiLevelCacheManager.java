@@ -1,34 +1,350 @@
 package com.lab.chche.cache;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.lab.chche.cache.offheap.OffHeapCache;
+import com.lab.chche.cache.offheap.OffHeapCacheManager;
+import com.lab.chche.cache.offheap.OffHeapStore;
+import com.lab.chche.cache.serializer.ValueCodec;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.util.ByteUtils;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-public class MultiLevelCacheManager implements CacheManager {
+public class MultiLevelCacheManager implements CacheManager, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiLevelCacheManager.class);
 
     private final CacheManager l1CacheManager; // Caffeine缓存管理器
     private final CacheManager l2CacheManager; // Redis缓存管理器
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final OffHeapCacheManager offHeapCacheManager; // l1-store 为 OFF_HEAP 的缓存使用，可为 null
+    private final MultiLevelCacheProperties properties;
+    private final CacheLoadLease loadLease; // 未启用跨节点租约时为 null
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final HybridLogicalClock clock = new HybridLogicalClock();
+    // 提前刷新使用的有界线程池
+    private final ExecutorService refreshExecutor;
+    // 写后缓冲的刷新线程，所有缓存共用
+    private final ScheduledExecutorService writeBehindExecutor;
+    // 其他节点同步消息的处理线程，按 key 分段保证同一个 key 的消息按序应用
+    private final StripedExecutor syncExecutor;
+    private final MeterRegistry meterRegistry;
+    // 按缓存名称提供全量 key 的数据源，延迟获取以避免与业务 Bean 循环依赖
+    private volatile ObjectProvider<CacheWarmupSource> warmupSources;
+    // 按缓存名称为条目生成标签，同样延迟获取
+    private volatile ObjectProvider<CacheTagResolver> tagResolvers;
+    // 由 Redis CLIENT TRACKING 推送失效的缓存，这些缓存的写入不再发布同步消息
+    private final Set<String> trackedCacheNames;
+    // 按名称缓存的长生命周期 MultiLevelCache 实例，统计数据随实例累积
+    private final ConcurrentMap<String, MultiLevelCache> cacheMap = new ConcurrentHashMap<>(16);
 
     public MultiLevelCacheManager(CacheManager l1CacheManager,
                                   CacheManager l2CacheManager,
-                                  RedisTemplate<String, Object> redisTemplate) {
+                                  OffHeapCacheManager offHeapCacheManager,
+                                  RedisTemplate<String, Object> redisTemplate,
+                                  MultiLevelCacheProperties properties,
+                                  MeterRegistry meterRegistry) {
         this.l1CacheManager = l1CacheManager;
         this.l2CacheManager = l2CacheManager;
-        this.redisTemplate = redisTemplate;
+        this.offHeapCacheManager = offHeapCacheManager;
+        this.properties = properties;
+        this.loadLease = properties.getLoadLease().isEnabled()
+                ? new CacheLoadLease(redisTemplate, properties.getLoadLease()) : null;
+        this.invalidationPublisher = new CacheInvalidationPublisher(redisTemplate, properties.getNodeId(),
+                properties.getInvalidation().getBatchWindow(), properties.getInvalidation().getMaxBatchSize());
+        this.refreshExecutor = refreshExecutor(properties.getRefresh());
+        this.writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = Math.max(1L, properties.getWriteBehind().getFlushInterval().toMillis());
+        this.writeBehindExecutor.scheduleWithFixedDelay(this::flushWriteBehind,
+                flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        MultiLevelCacheProperties.Listener listener = properties.getListener();
+        this.syncExecutor = new StripedExecutor("cache-sync",
+                listener.getStripes() > 0 ? listener.getStripes() : Runtime.getRuntime().availableProcessors(),
+                listener.getQueueCapacity());
+        Gauge.builder("cache.multilevel.sync.queued", syncExecutor, StripedExecutor::queued)
+                .description("等待应用到本地 L1 的同步消息数")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.invalidationPublisher.setPublishListener(this::recordMessageOut);
+        this.trackedCacheNames = properties.getInvalidation().getTransport()
+                == MultiLevelCacheProperties.InvalidationTransport.CLIENT_TRACKING
+                ? Collections.unmodifiableSet(new LinkedHashSet<>(properties.getCaches().keySet()))
+                : Collections.emptySet();
+    }
+
+    private void recordMessageOut(String cacheName) {
+        MultiLevelCache cache = cacheMap.get(cacheName);
+        if (cache != null) {
+            cache.metrics.recordMessageOut();
+        }
+    }
+
+    private static ExecutorService refreshExecutor(MultiLevelCacheProperties.Refresh refresh) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        int poolSize = Math.max(1, refresh.getPoolSize());
+        return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, refresh.getQueueCapacity())), r -> {
+                    Thread thread = new Thread(r, "cache-refresh-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
     @Override
     public Cache getCache(String name) {
-        Cache l1Cache = l1CacheManager.getCache(name);
+        MultiLevelCache cache = cacheMap.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        // 首次访问时懒创建，支持运行时动态出现的缓存名称
+        AtomicBoolean created = new AtomicBoolean();
+        cache = cacheMap.computeIfAbsent(name, n -> {
+            created.set(true);
+            return createMultiLevelCache(n);
+        });
+        if (created.get() && cache != null) {
+            // 构建过滤器要读取全部 key，放在 computeIfAbsent 之外，不长时间占住 cacheMap 的桶锁；构建完成前不过滤
+            initBloomFilter(cache, properties.getCacheSpec(name));
+        }
+        return cache;
+    }
+
+    private MultiLevelCache createMultiLevelCache(String name) {
+        Cache l1Cache = l1Cache(name);
         Cache l2Cache = l2CacheManager.getCache(name);
-        return new MultiLevelCache(name, l1Cache, l2Cache, redisTemplate);
+        if (l1Cache == null || l2Cache == null) {
+            return null;
+        }
+        MultiLevelCacheProperties.CacheSpec spec = properties.getCacheSpec(name);
+        MultiLevelCache cache = new MultiLevelCache(name, l1Cache, l2Cache, spec,
+                loadLease, invalidationPublisher, clock, refreshExecutor, writeBehindExecutor, meterRegistry);
+        cache.serverTracked = trackedCacheNames.contains(name);
+        cache.tagResolver = tagResolver(name);
+        return cache;
+    }
+
+    /**
+     * 启动时确定的、由 CLIENT TRACKING 负责失效的缓存名称
+     */
+    public Set<String> getTrackedCacheNames() {
+        return trackedCacheNames;
+    }
+
+    /**
+     * 把其他节点的更新交给 key 所在段的处理线程，同一个 key 的更新按到达顺序应用
+     * <p>
+     * 队列已满时不再排队，直接在调用线程上按消息版本写入 tombstone：L1 不会继续返回旧值，下次读取从 L2 回填。
+     * 本节点尚未创建的缓存 L1 为空，消息直接丢弃，不为远程消息懒创建缓存。
+     */
+    public void dispatchRemoteUpdate(CacheSyncCodec.UpdateFrame frame) {
+        MultiLevelCache multiLevelCache = existingCache(frame.getCacheName());
+        if (multiLevelCache == null) {
+            return;
+        }
+        int stripe = syncExecutor.stripeOf(frame.getKey());
+        if (!syncExecutor.execute(stripe, () -> multiLevelCache.applyRemoteUpdate(frame))) {
+            multiLevelCache.metrics.recordSyncDropped();
+            multiLevelCache.applyRemoteInvalidation(frame.getKey(), frame.getVersion(), frame.getOrigin(), true);
+        }
+    }
+
+    /**
+     * 按 key 所在段拆分失效批次后分发，队列已满的段在调用线程上直接应用
+     * <p>
+     * 清空事件在调用线程上执行，不等待各段中排在它之前的消息。本节点尚未创建的缓存直接丢弃。
+     */
+    public void dispatchRemoteInvalidations(CacheSyncCodec.InvalidationBatch batch) {
+        MultiLevelCache multiLevelCache = existingCache(batch.getCacheName());
+        if (multiLevelCache == null) {
+            return;
+        }
+        if (batch.isClear()) {
+            multiLevelCache.applyRemoteClear();
+            return;
+        }
+        multiLevelCache.metrics.recordMessageIn();
+        List<Object> keys = batch.getKeys();
+        Map<Integer, List<Integer>> indexesByStripe = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            indexesByStripe.computeIfAbsent(syncExecutor.stripeOf(keys.get(i)), k -> new ArrayList<>()).add(i);
+        }
+        indexesByStripe.forEach((stripe, indexes) -> {
+            Runnable task = () -> {
+                for (int i : indexes) {
+                    multiLevelCache.applyRemoteInvalidation(keys.get(i), batch.getVersion(i), batch.getOrigin(),
+                            batch.isWrite(i));
+                }
+            };
+            if (!syncExecutor.execute(stripe, task)) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * 已创建的缓存，不触发懒创建；只读的查询入口用它，避免按任意名称创建缓存和指标
+     */
+    public MultiLevelCache existingCache(String name) {
+        return cacheMap.get(name);
+    }
+
+    public void setWarmupSources(ObjectProvider<CacheWarmupSource> warmupSources) {
+        this.warmupSources = warmupSources;
+    }
+
+    public void setTagResolvers(ObjectProvider<CacheTagResolver> tagResolvers) {
+        this.tagResolvers = tagResolvers;
+    }
+
+    private CacheTagResolver tagResolver(String cacheName) {
+        ObjectProvider<CacheTagResolver> resolvers = this.tagResolvers;
+        if (resolvers == null) {
+            return null;
+        }
+        return resolvers.orderedStream()
+                .filter(resolver -> resolver.getCacheNames().contains(cacheName))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 在指定缓存中失效带有该标签的条目
+     *
+     * @return 失效的 key 总数
+     */
+    public int evictByTag(String tag, String... cacheNames) {
+        int evicted = 0;
+        for (String cacheName : cacheNames) {
+            Cache cache = getCache(cacheName);
+            if (cache instanceof MultiLevelCache) {
+                evicted += ((MultiLevelCache) cache).evictByTag(tag);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 在指定缓存中失效带有该标签、且 key 满足条件的条目，用于按查询条件重新判断哪些查询结果受影响
+     *
+     * @return 失效的 key 总数
+     */
+    public int evictByTag(String tag, Predicate<Object> keyFilter, String... cacheNames) {
+        int evicted = 0;
+        for (String cacheName : cacheNames) {
+            Cache cache = getCache(cacheName);
+            if (cache instanceof MultiLevelCache) {
+                evicted += ((MultiLevelCache) cache).evictByTag(tag, keyFilter);
+            }
+        }
+        return evicted;
+    }
+
+    CacheWarmupSource warmupSource(String cacheName) {
+        ObjectProvider<CacheWarmupSource> sources = this.warmupSources;
+        if (sources == null) {
+            return null;
+        }
+        return sources.orderedStream()
+                .filter(source -> cacheName.equals(source.getCacheName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void initBloomFilter(MultiLevelCache cache, MultiLevelCacheProperties.CacheSpec spec) {
+        if (!spec.isBloomFilter()) {
+            cache.rebuildBloomFilter(null);
+            return;
+        }
+        CacheWarmupSource source = warmupSource(cache.getName());
+        if (source == null) {
+            logger.warn("缓存 {} 开启了 bloom-filter 但没有对应的 CacheWarmupSource，过滤不生效", cache.getName());
+            cache.rebuildBloomFilter(null);
+            return;
+        }
+        Collection<?> keys = source.keys();
+        cache.rebuildBloomFilter(keys);
+        logger.info("Bloom 过滤器已构建 cache={} keys={}", cache.getName(), keys.size());
+    }
+
+    Cache l2Cache(String name) {
+        return l2CacheManager.getCache(name);
+    }
+
+    private Cache l1Cache(String name) {
+        Cache offHeapCache = offHeapCacheManager != null ? offHeapCacheManager.getCache(name) : null;
+        return offHeapCache != null ? offHeapCache : l1CacheManager.getCache(name);
+    }
+
+    private void flushWriteBehind() {
+        cacheMap.values().forEach(MultiLevelCache::flushWriteBehind);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+        syncExecutor.shutdown();
+        // 停止定时刷新后把写后缓冲中剩余的写入同步写入 L2，再关闭发布器发出最后的同步消息
+        writeBehindExecutor.shutdown();
+        try {
+            writeBehindExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushWriteBehind();
+        invalidationPublisher.close();
     }
 
     /**
@@ -52,32 +368,287 @@ public class MultiLevelCacheManager implements CacheManager {
 
     @Override
     public Collection<String> getCacheNames() {
-        return l2CacheManager.getCacheNames(); // 使用L2缓存名称作为数据源
+        // 使用L2缓存名称作为数据源，并合并已创建的多级缓存名称
+        Set<String> names = new LinkedHashSet<>(l2CacheManager.getCacheNames());
+        names.addAll(cacheMap.keySet());
+        return Collections.unmodifiableSet(names);
     }
 
-    public Map<String, Object> getCacheStats(String cacheName) {
-        Cache cache = getCache(cacheName);
-        if (cache instanceof MultiLevelCache) {
-            return ((MultiLevelCache) cache).getStats();
+    /**
+     * 按新的配置热更新各缓存：重建 L1 与 L2 缓存实例，已创建的 MultiLevelCache 保留统计与加载状态
+     * <p>
+     * 只有 caches.* 下的单缓存配置支持热更新，节点、租约、线程池等全局配置需要重启生效。
+     */
+    public synchronized void reconfigure(MultiLevelCacheProperties newProperties) {
+        Set<String> names = new LinkedHashSet<>(cacheMap.keySet());
+        names.addAll(properties.getCaches().keySet());
+        names.addAll(newProperties.getCaches().keySet());
+        properties.setCaches(newProperties.getCaches());
+
+        for (String name : names) {
+            MultiLevelCacheProperties.CacheSpec spec = properties.getCacheSpec(name);
+            Cache l1Cache = rebuildL1Cache(name, spec);
+            Cache l2Cache = l2CacheManager instanceof ReconfigurableRedisCacheManager
+                    ? ((ReconfigurableRedisCacheManager) l2CacheManager).reconfigure(name, spec)
+                    : l2CacheManager.getCache(name);
+            MultiLevelCache cache = cacheMap.get(name);
+            if (cache != null && l1Cache != null && l2Cache != null) {
+                cache.reconfigure(spec, l1Cache, l2Cache);
+                initBloomFilter(cache, spec);
+            }
         }
-        return null;
+        logger.info("多级缓存配置已更新 caches={}", names);
+    }
+
+    private Cache rebuildL1Cache(String name, MultiLevelCacheProperties.CacheSpec spec) {
+        Cache offHeapCache = offHeapCacheManager != null ? offHeapCacheManager.reconfigure(name, spec) : null;
+        if (offHeapCache != null) {
+            return offHeapCache;
+        }
+        if (l1CacheManager instanceof CaffeineCacheManager) {
+            // 新实例从空开始，避免迁移期间漏掉并发到达的失效消息
+            Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs = l2CacheManager
+                    instanceof ReconfigurableRedisCacheManager
+                    ? ((ReconfigurableRedisCacheManager) l2CacheManager).getCodecs() : null;
+            ((CaffeineCacheManager) l1CacheManager).registerCustomCache(name,
+                    CacheSpecSupport.caffeine(spec, codecs).build());
+        }
+        return l1CacheManager.getCache(name);
+    }
+
+    /**
+     * 当前生效的单缓存配置
+     */
+    public Map<String, MultiLevelCacheProperties.CacheSpec> getCacheSpecs() {
+        Map<String, MultiLevelCacheProperties.CacheSpec> specs = new HashMap<>();
+        for (String name : getCacheNames()) {
+            specs.put(name, properties.getCacheSpec(name));
+        }
+        return specs;
+    }
+
+    /**
+     * @return 缓存尚未创建时返回 null
+     */
+    public Map<String, Object> getCacheStats(String cacheName) {
+        MultiLevelCache cache = existingCache(cacheName);
+        return cache != null ? cache.getStats() : null;
     }
 
     public static class MultiLevelCache implements Cache {
+        // 只需覆盖一次 L2 读取到写入 L1 之间的窗口
+        private static final int RECENT_INVALIDATIONS = 4096;
+        private static final Duration RECENT_INVALIDATION_TTL = Duration.ofSeconds(10);
+        private static final long MAX_ADMISSION_SKETCH_KEYS = 1L << 16;
+
         private final String name;
-        private final Cache l1Cache;
-        private final Cache l2Cache;
-        private final RedisTemplate<String, Object> redisTemplate;
-        // 在 MultiLevelCache 类中添加这些字段
-        private final CacheStats l1Stats = new CacheStats();
-        private final CacheStats l2Stats = new CacheStats();
-
-        public MultiLevelCache(String name, Cache l1Cache, Cache l2Cache, 
-                             RedisTemplate<String, Object> redisTemplate) {
+        // 以下与配置相关的字段在热更新时整体替换
+        private volatile Cache l1Cache;
+        private volatile Cache l2Cache;
+        // L1 的原生并发视图，基于版本的比较写入在这里完成
+        private volatile ConcurrentMap<Object, Object> l1Map;
+        private volatile MultiLevelCacheProperties.CacheSpec spec;
+        private final CacheLoadLease loadLease;
+        private final CacheInvalidationPublisher invalidationPublisher;
+        private final HybridLogicalClock clock;
+        // 同步消息中值的编码方式，与该缓存的 L2 保持一致
+        private volatile RedisSerializationContext.SerializationPair<Object> syncSerializer;
+        private final String nodeId;
+        private final ExecutorService refreshExecutor;
+        private final ExecutorService writeBehindExecutor;
+        // 条目标签，未注册 CacheTagResolver 时为 null
+        private volatile CacheTagResolver tagResolver;
+        // 写后缓冲，未开启 write-behind 时为 null
+        private volatile WriteBehindBuffer writeBehind;
+        // 条目写入后超过该时长即在读取时触发后台刷新，0 表示关闭
+        private volatile long refreshAheadMillis;
+        // 最近回源耗时的指数移动平均，用于概率提前刷新，本节点尚未回源时为 0
+        private volatile long loadNanos;
+        // 正在回源的 key，同一 JVM 内的并发请求共享同一个加载结果
+        private final ConcurrentMap<Object, CompletableFuture<Object>> loadingFutures = new ConcurrentHashMap<>();
+        private final MultiLevelCacheMetrics metrics;
+        // 热点 key 跟踪，未开启时为 null
+        private volatile HotKeyTracker hotKeys;
+        // L2 命中后写入 L1 的准入过滤，未开启时为 null
+        private volatile L1AdmissionFilter l1Admission;
+        // L1 按条目调整过期时间的入口，L1 不支持时为 null
+        private volatile Policy.VarExpiration<Object, Object> l1Expiration;
+        // 已知存在的 key，未开启时为 null
+        private volatile KeyBloomFilter bloomFilter;
+        // 失效由 Redis 推送，本节点写入后不再发布同步消息
+        private volatile boolean serverTracked;
+        // L1 中 key 的类型，用于把 Redis 推送的字符串 key 还原为 L1 key；出现多种类型时为 Object.class
+        private volatile Class<?> keyType;
+        // 最近的失效版本，L1 中没有的 key 失效时只记在这里
+        private final com.github.benmanes.caffeine.cache.Cache<Object, CacheEntry> recentInvalidations =
+                Caffeine.newBuilder()
+                        .maximumSize(RECENT_INVALIDATIONS)
+                        .expireAfterWrite(RECENT_INVALIDATION_TTL)
+                        .build();
+
+        public MultiLevelCache(String name, Cache l1Cache, Cache l2Cache,
+                             MultiLevelCacheProperties.CacheSpec spec,
+                             CacheLoadLease loadLease,
+                             CacheInvalidationPublisher invalidationPublisher,
+                             HybridLogicalClock clock,
+                             ExecutorService refreshExecutor,
+                             ExecutorService writeBehindExecutor,
+                             MeterRegistry meterRegistry) {
             this.name = name;
             this.l1Cache = l1Cache;
             this.l2Cache = l2Cache;
-            this.redisTemplate = redisTemplate;
+            this.l1Map = nativeMap(l1Cache);
+            this.spec = spec;
+            this.loadLease = loadLease;
+            this.invalidationPublisher = invalidationPublisher;
+            this.clock = clock;
+            this.syncSerializer = syncSerializer(l2Cache);
+            this.nodeId = invalidationPublisher.getNodeId();
+            this.refreshExecutor = refreshExecutor;
+            this.writeBehindExecutor = writeBehindExecutor;
+            this.writeBehind = writeBehindBuffer(spec);
+            this.refreshAheadMillis = refreshAheadMillis(spec);
+            this.hotKeys = hotKeyTracker(spec);
+            this.l1Admission = l1AdmissionFilter(spec);
+            this.l1Expiration = varExpiration(l1Cache);
+            this.metrics = new MultiLevelCacheMetrics(name, meterRegistry,
+                    () -> this.l1Map.size(), () -> sizeEvictions(this.l1Cache), () -> {
+                        WriteBehindBuffer buffer = this.writeBehind;
+                        return buffer != null ? buffer.size() : 0;
+                    }, () -> l1Bytes(false), () -> l1Bytes(true));
+        }
+
+        private static WriteBehindBuffer writeBehindBuffer(MultiLevelCacheProperties.CacheSpec spec) {
+            return spec.isWriteBehind()
+                    ? new WriteBehindBuffer(spec.getWriteBehindCapacity(), spec.getWriteBehindBatchSize()) : null;
+        }
+
+        private static long sizeEvictions(Cache l1Cache) {
+            if (l1Cache instanceof OffHeapCache) {
+                return ((OffHeapCache) l1Cache).getNativeCache().evictionCount();
+            }
+            Object nativeCache = l1Cache.getNativeCache();
+            if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+                return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache).stats().evictionCount();
+            }
+            return 0L;
+        }
+
+        /**
+         * L1 当前占用或预算的字节数：堆外 L1 取实际分配，堆内 L1 只在按字节加权时有值，其余为 NaN
+         */
+        @SuppressWarnings("unchecked")
+        private double l1Bytes(boolean budget) {
+            Cache l1Cache = this.l1Cache;
+            if (l1Cache instanceof OffHeapCache) {
+                OffHeapStore store = ((OffHeapCache) l1Cache).getNativeCache();
+                return budget ? store.capacityBytes() : store.usedBytes();
+            }
+            Object nativeCache = l1Cache.getNativeCache();
+            if (!CacheSpecSupport.weighsBytes(spec) || !(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache)) {
+                return Double.NaN;
+            }
+            Optional<Policy.Eviction<Object, Object>> eviction =
+                    ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).policy().eviction();
+            if (!eviction.isPresent()) {
+                return Double.NaN;
+            }
+            return budget ? eviction.get().getMaximum() : eviction.get().weightedSize().orElse(0L);
+        }
+
+        private static HotKeyTracker hotKeyTracker(MultiLevelCacheProperties.CacheSpec spec) {
+            return spec.isHotKeyPinning() ? new HotKeyTracker(spec.getHotKeyTopK(), spec.getHotKeySampleRate()) : null;
+        }
+
+        private static L1AdmissionFilter l1AdmissionFilter(MultiLevelCacheProperties.CacheSpec spec) {
+            if (spec.getL1AdmissionHits() <= 1) {
+                return null;
+            }
+            Integer sketchSize = spec.getL1AdmissionSketchSize();
+            // 计数器表上限 4 x 2^16 个 int（1 MB），避免按很大的 l1-max-size 分配；
+            // 更多的 key 只会增加少量误判，被误判为多次命中的 key 提前进入 L1
+            long expectedKeys = Math.min(MAX_ADMISSION_SKETCH_KEYS,
+                    Math.max(1L, sketchSize != null ? sketchSize : spec.getL1MaxSize()));
+            Duration window = spec.getL1AdmissionWindow() != null ? spec.getL1AdmissionWindow() : Duration.ofMinutes(1);
+            return new L1AdmissionFilter(spec.getL1AdmissionHits(), window.toNanos(), (int) expectedKeys);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Policy.VarExpiration<Object, Object> varExpiration(Cache l1Cache) {
+            Object nativeCache = l1Cache.getNativeCache();
+            if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+                return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache)
+                        .policy().expireVariably().orElse(null);
+            }
+            return null;
+        }
+
+        private static long refreshAheadMillis(MultiLevelCacheProperties.CacheSpec spec) {
+            if (spec.getRefreshAfter() != null) {
+                return Math.max(0L, spec.getRefreshAfter().toMillis());
+            }
+            long ttlMillis = spec.getL2Ttl().toMillis();
+            if (spec.getRefreshAheadRatio() <= 0 || ttlMillis <= 0) {
+                return 0L;
+            }
+            return (long) (ttlMillis * Math.min(spec.getRefreshAheadRatio(), 1.0));
+        }
+
+        /**
+         * 切换到新的配置与底层缓存实例
+         */
+        void reconfigure(MultiLevelCacheProperties.CacheSpec spec, Cache l1Cache, Cache l2Cache) {
+            if (l1Cache != this.l1Cache) {
+                metrics.retireL1(sizeEvictions(this.l1Cache));
+            }
+            this.l1Map = nativeMap(l1Cache);
+            this.l1Expiration = varExpiration(l1Cache);
+            this.l1Cache = l1Cache;
+            this.l2Cache = l2Cache;
+            if (spec.isHotKeyPinning() != this.spec.isHotKeyPinning()
+                    || spec.getHotKeyTopK() != this.spec.getHotKeyTopK()
+                    || spec.getHotKeySampleRate() != this.spec.getHotKeySampleRate()) {
+                this.hotKeys = hotKeyTracker(spec);
+            }
+            if (spec.getL1AdmissionHits() != this.spec.getL1AdmissionHits()
+                    || !Objects.equals(spec.getL1AdmissionWindow(), this.spec.getL1AdmissionWindow())
+                    || !Objects.equals(spec.getL1AdmissionSketchSize(), this.spec.getL1AdmissionSketchSize())
+                    || spec.getL1MaxSize() != this.spec.getL1MaxSize()) {
+                this.l1Admission = l1AdmissionFilter(spec);
+            }
+            this.syncSerializer = syncSerializer(l2Cache);
+            this.refreshAheadMillis = refreshAheadMillis(spec);
+            MultiLevelCacheProperties.CacheSpec previous = this.spec;
+            this.spec = spec;
+            if (spec.isWriteBehind() != previous.isWriteBehind()
+                    || spec.getWriteBehindCapacity() != previous.getWriteBehindCapacity()
+                    || spec.getWriteBehindBatchSize() != previous.getWriteBehindBatchSize()) {
+                // 先切换再刷新旧缓冲，旧缓冲中的写入按新的 L2 配置写出
+                WriteBehindBuffer retired = this.writeBehind;
+                this.writeBehind = writeBehindBuffer(spec);
+                if (retired != null) {
+                    flushWriteBehind(retired);
+                }
+            }
+        }
+
+        private static RedisSerializationContext.SerializationPair<Object> syncSerializer(Cache l2Cache) {
+            if (l2Cache instanceof RedisCache) {
+                return ((RedisCache) l2Cache).getCacheConfiguration().getValueSerializationPair();
+            }
+            return RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.java());
+        }
+
+        @SuppressWarnings("unchecked")
+        private static ConcurrentMap<Object, Object> nativeMap(Cache l1Cache) {
+            Object nativeCache = l1Cache.getNativeCache();
+            if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+                return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap();
+            }
+            if (nativeCache instanceof ConcurrentMap) {
+                return (ConcurrentMap<Object, Object>) nativeCache;
+            }
+            throw new IllegalArgumentException("Unsupported L1 cache: " + l1Cache.getClass().getName());
         }
 
         @Override
@@ -92,196 +663,1231 @@ public class MultiLevelCacheManager implements CacheManager {
 
         @Override
         public ValueWrapper get(Object key) {
-            // Try L1 cache first
-            ValueWrapper value = l1Cache.get(key);
-            if (value != null) {
-                l1Stats.recordHit();
-                return value;
+            CacheEntry entry = lookup(key);
+            return entry != null ? new SimpleValueWrapper(entry.getValue()) : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Class<T> type) {
+            CacheEntry entry = lookup(key);
+            Object value = entry != null ? entry.getValue() : null;
+            if (value != null && type != null && !type.isInstance(value)) {
+                throw new IllegalStateException(
+                        "Cached value is not of required type [" + type.getName() + "]: " + value);
             }
-            l1Stats.recordMiss();
+            return (T) value;
+        }
 
+        /**
+         * L1 -> L2 查找，L2 命中时回填 L1
+         */
+        private CacheEntry lookup(Object key) {
+            // Try L1 cache first
+            CacheEntry entry = l1Lookup(key);
+            if (entry != null) {
+                return entry;
+            }
 
             // If not in L1, try L2 cache
-            value = l2Cache.get(key);
-            if (value != null) {
-                l2Stats.recordHit();
+            long start = System.nanoTime();
+            return afterL2Lookup(key, l2Entry(key), start);
+        }
+
+        /**
+         * lookup 的异步版本：L1 命中时返回已完成的 future，未命中时异步读取 L2，不阻塞调用线程
+         */
+        private CompletableFuture<CacheEntry> lookupAsync(Object key) {
+            CacheEntry entry = l1Lookup(key);
+            if (entry != null) {
+                return CompletableFuture.completedFuture(entry);
+            }
+            long start = System.nanoTime();
+            return l2EntryAsync(key).thenApply(l2 -> afterL2Lookup(key, l2, start));
+        }
+
+        private CacheEntry l1Lookup(Object key) {
+            recordAccess(key);
+            long start = System.nanoTime();
+            CacheEntry entry = l1Entry(key);
+            metrics.recordL1(entry != null, System.nanoTime() - start);
+            if (entry != null && entry.isNegative()) {
+                metrics.recordNegativeHit();
+            }
+            return entry;
+        }
+
+        private CacheEntry afterL2Lookup(Object key, CacheEntry entry, long start) {
+            metrics.recordL2(entry != null, System.nanoTime() - start);
+            if (entry != null) {
+                if (entry.isNegative()) {
+                    metrics.recordNegativeHit();
+                } else {
+                    markExists(key);
+                }
                 // Populate L1 cache from L2
-                l1Cache.put(key, value.get());
-            } else {
-                l2Stats.recordMiss();
+                promoteL1(key, entry);
+            }
+            return entry;
+        }
+
+        /**
+         * L2 命中后写入 L1，开启准入过滤时只写入窗口内命中次数足够的 key
+         */
+        private void promoteL1(Object key, CacheEntry entry) {
+            L1AdmissionFilter admission = this.l1Admission;
+            if (admission != null && spec.isL1Enabled()) {
+                boolean admitted = admission.admit(key);
+                metrics.recordL1Admission(admitted);
+                if (!admitted) {
+                    return;
+                }
+            }
+            storeL1(key, entry);
+        }
+
+        private void markExists(Object key) {
+            KeyBloomFilter bloomFilter = this.bloomFilter;
+            if (bloomFilter != null) {
+                bloomFilter.put(key);
+            }
+        }
+
+        /**
+         * 两级缓存都未命中后判断是否需要回源，Bloom 过滤器确定 key 不存在时返回 false
+         */
+        private boolean mightExist(Object key) {
+            KeyBloomFilter bloomFilter = this.bloomFilter;
+            if (bloomFilter == null || bloomFilter.mightContain(key)) {
+                return true;
+            }
+            metrics.recordBloomRejection();
+            return false;
+        }
+
+        /**
+         * 用数据源提供的全量 key 重建 Bloom 过滤器，keys 为 null 时关闭过滤
+         */
+        void rebuildBloomFilter(Collection<?> keys) {
+            if (keys == null) {
+                this.bloomFilter = null;
+                return;
+            }
+            KeyBloomFilter filter = new KeyBloomFilter(Math.max(1024L, keys.size() * 2L), spec.getBloomFilterFpp());
+            keys.forEach(filter::put);
+            this.bloomFilter = filter;
+        }
+
+        private boolean cachesNull() {
+            return spec.getNegativeTtl() != null;
+        }
+
+        /**
+         * 采样记录一次读取，key 新成为热点时延长其在 L1 中的过期时间
+         */
+        private void recordAccess(Object key) {
+            HotKeyTracker hotKeys = this.hotKeys;
+            if (hotKeys != null && hotKeys.record(key)) {
+                pin(key);
+            }
+        }
+
+        private void pin(Object key) {
+            Policy.VarExpiration<Object, Object> expiration = this.l1Expiration;
+            if (expiration == null) {
+                return;
+            }
+            Object current = l1Map.get(key);
+            if (current != null && !((CacheEntry) current).isTombstone()) {
+                expiration.setExpiresAfter(key, spec.getHotKeyTtl());
+            }
+        }
+
+        /**
+         * 当前的热点 key 及其估算的采样频率，未开启热点跟踪时为空
+         */
+        public Map<Object, Integer> getHotKeys() {
+            HotKeyTracker hotKeys = this.hotKeys;
+            return hotKeys != null ? hotKeys.snapshot() : Collections.emptyMap();
+        }
+
+        /**
+         * 预热：一次 MGET 读取给定 key 写入 L1，L2 中没有的交给数据源加载并写入两级缓存
+         *
+         * @return 写入 L1 的条目数
+         */
+        int preload(Collection<?> keys, CacheWarmupSource source) {
+            Map<Object, CacheEntry> hits = l2Entries(keys);
+            hits.forEach((key, entry) -> {
+                storeL1(key, entry);
+                if (!entry.isNegative()) {
+                    markExists(key);
+                }
+            });
+            if (source == null || hits.size() == keys.size()) {
+                return hits.size();
+            }
+            List<Object> missing = new ArrayList<>();
+            for (Object key : keys) {
+                if (!hits.containsKey(key)) {
+                    missing.add(key);
+                }
+            }
+            Map<?, ?> loaded = source.load(missing);
+            if (loaded == null || loaded.isEmpty()) {
+                return hits.size();
+            }
+            Map<Object, Object> values = new LinkedHashMap<>();
+            loaded.forEach((key, value) -> {
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+            putAll(values);
+            return hits.size() + values.size();
+        }
+
+        private CacheEntry l1Entry(Object key) {
+            if (!spec.isL1Enabled()) {
+                return null;
+            }
+            CacheEntry entry = (CacheEntry) l1Map.get(key);
+            return entry == null || entry.isTombstone() ? null : entry;
+        }
+
+        private CacheEntry l2Entry(Object key) {
+            WriteBehindBuffer buffer = this.writeBehind;
+            CacheEntry pending = buffer != null ? buffer.pending(key) : null;
+            if (pending != null) {
+                // 尚未写入 L2 的写入比 L2 中的值新
+                return pending.isTombstone() ? null : pending;
+            }
+            ValueWrapper wrapper;
+            try {
+                wrapper = l2Cache.get(key);
+            } catch (SerializationException e) {
+                // 序列化方式调整前写入的数据无法解析，按未命中处理并由新值覆盖
+                logger.warn("L2 缓存值无法反序列化，按未命中处理 cache={} key={}", name, key, e);
+                return null;
+            }
+            if (wrapper == null) {
+                return null;
+            }
+            return asEntry(wrapper.get());
+        }
+
+        private CompletableFuture<CacheEntry> l2EntryAsync(Object key) {
+            Cache l2Cache = this.l2Cache;
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (!(l2Cache instanceof BulkRedisCache) || (buffer != null && buffer.pending(key) != null)) {
+                return CompletableFuture.completedFuture(l2Entry(key));
+            }
+            return ((BulkRedisCache) l2Cache).getAsync(key).handle((stored, e) -> {
+                if (e == null) {
+                    return stored != null ? asEntry(stored) : null;
+                }
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof SerializationException) {
+                    logger.warn("L2 缓存值无法反序列化，按未命中处理 cache={} key={}", name, key, cause);
+                    return null;
+                }
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+            });
+        }
+
+        private static CacheEntry asEntry(Object stored) {
+            if (stored instanceof CacheEntry) {
+                return (CacheEntry) stored;
+            }
+            // 升级前写入的裸值，视为最旧版本
+            return new CacheEntry(stored, 0L, null);
+        }
+
+        /**
+         * 仅当 entry 比 L1 中现有条目更新时写入
+         *
+         * @return 是否写入
+         */
+        private boolean storeL1(Object key, CacheEntry entry) {
+            if (!spec.isL1Enabled()) {
+                return false;
+            }
+            if (entry.isNegative() && l1Expiration == null) {
+                // L1 无法单独设置空值的过期时间，只在 L1 中清掉旧值，空值留在 L2
+                entry = CacheEntry.tombstone(entry.getVersion(), entry.getOrigin());
+            }
+            recordKeyType(key);
+            if (entry.isTombstone()) {
+                return storeTombstone(key, entry);
+            }
+            if (isInvalidated(key, entry) || !writeL1(key, entry)) {
+                return false;
+            }
+            if (isInvalidated(key, entry)) {
+                // 写入期间到达了更新的失效，而 L1 中原本没有这个 key，失效只记在了 recentInvalidations 中
+                l1Map.remove(key, entry);
+                return false;
+            }
+            afterStoreL1(key, entry);
+            return true;
+        }
+
+        private boolean writeL1(Object key, CacheEntry entry) {
+            ConcurrentMap<Object, Object> l1Map = this.l1Map;
+            if (l1Map instanceof OffHeapStore) {
+                return ((OffHeapStore) l1Map).putIfNewer(key, entry, false);
+            }
+            for (;;) {
+                Object current = l1Map.get(key);
+                if (current == null) {
+                    if (l1Map.putIfAbsent(key, entry) == null) {
+                        return true;
+                    }
+                } else if (!entry.isNewerThan((CacheEntry) current)) {
+                    return false;
+                } else if (l1Map.replace(key, current, entry)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 失效只覆盖 L1 中已有的 key，不为本节点没有缓存的 key 占用 L1 容量
+         * <p>
+         * 失效版本另外记在容量独立的 recentInvalidations 中，拒绝失效之前从 L2 读到、稍后才写入 L1 的旧值。
+         * 先登记再检查 L1，与 storeL1 中先写入再检查登记的顺序相反，两者交错时至少一方能看到对方。
+         */
+        private boolean storeTombstone(Object key, CacheEntry tombstone) {
+            recentInvalidations.asMap().merge(key, tombstone, (a, b) -> b.isNewerThan(a) ? b : a);
+            ConcurrentMap<Object, Object> l1Map = this.l1Map;
+            if (l1Map instanceof OffHeapStore) {
+                return ((OffHeapStore) l1Map).putIfNewer(key, tombstone, true);
+            }
+            for (;;) {
+                Object current = l1Map.get(key);
+                if (current == null || !tombstone.isNewerThan((CacheEntry) current)) {
+                    return false;
+                }
+                if (l1Map.replace(key, current, tombstone)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * L1 中条目的版本信息，堆外 L1 只读取索引，不反序列化值
+         */
+        private CacheEntry l1Header(Object key) {
+            ConcurrentMap<Object, Object> l1Map = this.l1Map;
+            return l1Map instanceof OffHeapStore ? ((OffHeapStore) l1Map).header(key) : (CacheEntry) l1Map.get(key);
+        }
+
+        private boolean isInvalidated(Object key, CacheEntry entry) {
+            CacheEntry tombstone = recentInvalidations.getIfPresent(key);
+            return tombstone != null && !entry.isNewerThan(tombstone);
+        }
+
+        private void recordKeyType(Object key) {
+            Class<?> keyType = this.keyType;
+            if (keyType != key.getClass() && keyType != Object.class) {
+                this.keyType = keyType == null ? key.getClass() : Object.class;
+            }
+        }
+
+        private void afterStoreL1(Object key, CacheEntry entry) {
+            // 写入会把过期时间重置为普通 TTL，热点 key 需要重新延长
+            HotKeyTracker hotKeys = this.hotKeys;
+            if (hotKeys != null && !entry.isTombstone() && hotKeys.isHot(key)) {
+                pin(key);
             }
-            
-            return value;
         }
 
         @Override
-        public <T> T get(Object key, Class<T> type) {
-            // Try L1 cache first
-            T value = l1Cache.get(key, type);
-            if (value != null) {
-                l1Stats.recordHit();
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            // 读穿透：L1 -> L2 -> 回源
+            CacheEntry entry = lookup(key);
+            if (entry != null) {
+                if (shouldRefresh(entry)) {
+                    refreshAsync(key, entry, valueLoader);
+                }
+                return (T) entry.getValue();
+            }
+            if (!mightExist(key)) {
+                return null;
+            }
+            return (T) loadSingleFlight(key, valueLoader);
+        }
+
+        /**
+         * 版本为 0 的条目是升级前写入的裸值（见 asEntry），没有写入时间，不参与提前刷新，按 TTL 正常过期
+         */
+        private boolean shouldRefresh(CacheEntry entry) {
+            if (entry.getVersion() == 0L) {
+                return false;
+            }
+            long age = System.currentTimeMillis() - HybridLogicalClock.physicalTime(entry.getVersion());
+            long refreshAheadMillis = this.refreshAheadMillis;
+            if (refreshAheadMillis > 0 && age >= refreshAheadMillis) {
+                return true;
+            }
+            return shouldRefreshEarly(entry, age);
+        }
+
+        /**
+         * XFetch：回源耗时 * beta * -ln(rand) 不小于剩余存活时间时提前刷新
+         * <p>
+         * 越接近过期、回源越慢，刷新概率越高，并发读取的各节点只有少数会在过期前刷新，过期时不再集中回源。
+         * 抖动后的 L2 TTL 无法得知，剩余时间按可能的最短 TTL 估算。
+         */
+        private boolean shouldRefreshEarly(CacheEntry entry, long ageMillis) {
+            MultiLevelCacheProperties.CacheSpec spec = this.spec;
+            long deltaNanos = this.loadNanos;
+            if (spec.getEarlyRefreshBeta() <= 0 || deltaNanos <= 0) {
+                return false;
+            }
+            long ttlMillis = baseL2Ttl(entry).toMillis();
+            if (ttlMillis <= 0) {
+                return false;
+            }
+            long minTtlMillis = ttlMillis - (long) (ttlMillis * Math.min(Math.max(spec.getTtlJitter(), 0), 1.0));
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(minTtlMillis - ageMillis);
+            double gap = -Math.log(ThreadLocalRandom.current().nextDouble());
+            return deltaNanos * spec.getEarlyRefreshBeta() * gap >= remainingNanos;
+        }
+
+        private void recordLoad(boolean success, long nanos) {
+            metrics.recordLoad(success, nanos);
+            if (success) {
+                long previous = this.loadNanos;
+                this.loadNanos = previous == 0 ? nanos : previous + (nanos - previous) / 8;
+            }
+        }
+
+        /**
+         * 在后台重新加载即将过期的条目，与前台回源共用 loadingFutures，同一个 key 只会有一个刷新任务
+         * <p>
+         * valueLoader 会在调用返回后被再次执行，要求其可以重复调用（@Cacheable 生成的 loader 满足这一点）。
+         */
+        private void refreshAsync(Object key, CacheEntry stale, Callable<?> valueLoader) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            if (loadingFutures.putIfAbsent(key, future) != null) {
+                return;
+            }
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        future.complete(refresh(key, stale, valueLoader));
+                    } catch (Throwable ex) {
+                        logger.warn("提前刷新缓存失败 cache={} key={}", name, key, ex);
+                        future.completeExceptionally(ex);
+                    } finally {
+                        loadingFutures.remove(key, future);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 刷新线程池已满，本次继续使用旧值
+                loadingFutures.remove(key, future);
+                future.complete(stale.getValue());
+            }
+        }
+
+        private Object refresh(Object key, CacheEntry stale, Callable<?> valueLoader) throws Exception {
+            if (loadLease == null) {
+                return loadAndPut(key, valueLoader);
+            }
+            String token = loadLease.tryAcquire(name, key);
+            if (token == null) {
+                // 其他节点正在刷新，结果会写入 L2 并同步过来
+                return stale.getValue();
+            }
+            try {
+                return loadAndPut(key, valueLoader);
+            } finally {
+                loadLease.release(name, key, token);
+            }
+        }
+
+        /**
+         * 同一个 key 在本 JVM 内只执行一次回源，其余线程等待同一个 future
+         */
+        private Object loadSingleFlight(Object key, Callable<?> valueLoader) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> inFlight = loadingFutures.putIfAbsent(key, future);
+            if (inFlight != null) {
+                return awaitLoad(key, valueLoader, inFlight);
+            }
+            try {
+                Object value = loadAndStore(key, valueLoader);
+                future.complete(value);
                 return value;
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+                throw ex instanceof ValueRetrievalException
+                        ? (ValueRetrievalException) ex : new ValueRetrievalException(key, valueLoader, ex);
+            } finally {
+                loadingFutures.remove(key, future);
             }
-            l1Stats.recordMiss();
-            // If not in L1, try L2 cache
-            value = l2Cache.get(key, type);
-            if (value != null) {
-                l2Stats.recordMiss();
-                // Populate L1 cache from L2
-                l1Cache.put(key, value);
-            } else {
-                l2Stats.recordMiss();
+        }
+
+        private Object awaitLoad(Object key, Callable<?> valueLoader, CompletableFuture<Object> inFlight) {
+            try {
+                return inFlight.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof ValueRetrievalException
+                        ? (ValueRetrievalException) cause : new ValueRetrievalException(key, valueLoader, cause);
+            }
+        }
+
+        private Object loadAndStore(Object key, Callable<?> valueLoader) throws Exception {
+            // 上一轮加载可能刚好在 putIfAbsent 之前完成，再查一次 L1
+            CacheEntry loaded = l1Entry(key);
+            if (loaded != null) {
+                return loaded.getValue();
+            }
+            if (loadLease == null) {
+                return loadAndPut(key, valueLoader);
+            }
+
+            String token = loadLease.tryAcquire(name, key);
+            if (token != null) {
+                try {
+                    return loadAndPut(key, valueLoader);
+                } finally {
+                    loadLease.release(name, key, token);
+                }
+            }
+
+            // 其他节点正在重建，等待其写入 L2；超时后本节点自行加载
+            long deadline = System.nanoTime() + loadLease.getWaitTimeout().toNanos();
+            long pollMillis = Math.max(1L, loadLease.getPollInterval().toMillis());
+            while (System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(pollMillis);
+                loaded = l2Entry(key);
+                if (loaded != null) {
+                    storeL1(key, loaded);
+                    return loaded.getValue();
+                }
+            }
+            return loadAndPut(key, valueLoader);
+        }
+
+        private Object loadAndPut(Object key, Callable<?> valueLoader) throws Exception {
+            long start = System.nanoTime();
+            Object value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception | Error e) {
+                recordLoad(false, System.nanoTime() - start);
+                throw e;
+            }
+            recordLoad(true, System.nanoTime() - start);
+            if (value != null || cachesNull()) {
+                put(key, value);
             }
-            
             return value;
         }
 
-        @Override
-        public <T> T get(Object key, Callable<T> valueLoader) {
+        /**
+         * 批量读穿透：一次遍历 L1，未命中的 key 合并为一次 L2 批量读取，仍未命中的交给 bulkLoader 一次加载
+         * <p>
+         * L2 命中回填 L1，加载结果写入两级缓存；bulkLoader 未返回的 key 不缓存，也不出现在结果中。
+         *
+         * @param bulkLoader 按 key 集合批量回源，可为 null，此时只返回已缓存的值
+         * @return 按 keys 顺序排列的 key 到值的映射
+         */
+        @SuppressWarnings("unchecked")
+        public <K, V> Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+            Map<K, V> result = new LinkedHashMap<>(keys.size() * 4 / 3 + 1);
+            Set<K> l1Misses = new LinkedHashSet<>();
+            long start = System.nanoTime();
+            for (K key : keys) {
+                recordAccess(key);
+                CacheEntry entry = l1Entry(key);
+                if (entry == null) {
+                    l1Misses.add(key);
+                } else if (entry.isNegative()) {
+                    metrics.recordNegativeHit();
+                } else {
+                    result.put(key, (V) entry.getValue());
+                }
+            }
+            long l1Done = System.nanoTime();
+            metrics.recordL1Batch(keys.size() - l1Misses.size(), l1Misses.size(), l1Done - start);
+            if (l1Misses.isEmpty()) {
+                return result;
+            }
+
+            Map<Object, CacheEntry> l2Hits = l2Entries(l1Misses);
+            metrics.recordL2Batch(l2Hits.size(), l1Misses.size() - l2Hits.size(), System.nanoTime() - l1Done);
+            Set<K> misses = new LinkedHashSet<>();
+            for (K key : l1Misses) {
+                CacheEntry entry = l2Hits.get(key);
+                if (entry == null) {
+                    if (mightExist(key)) {
+                        misses.add(key);
+                    }
+                    continue;
+                }
+                promoteL1(key, entry);
+                if (entry.isNegative()) {
+                    metrics.recordNegativeHit();
+                } else {
+                    markExists(key);
+                    result.put(key, (V) entry.getValue());
+                }
+            }
+            if (misses.isEmpty() || bulkLoader == null) {
+                return orderedAs(keys, result);
+            }
+
+            long loadStart = System.nanoTime();
+            Map<K, V> loaded;
             try {
-                // Try L1 cache first
-                T value = l1Cache.get(key, valueLoader);
+                loaded = bulkLoader.apply(Collections.unmodifiableSet(misses));
+            } catch (RuntimeException | Error e) {
+                metrics.recordLoad(false, System.nanoTime() - loadStart);
+                throw e;
+            }
+            metrics.recordLoad(true, System.nanoTime() - loadStart);
+            // 加载器未返回的 key 视为不存在，开启空值缓存时一并写入空值
+            Map<K, V> toStore = new LinkedHashMap<>();
+            for (K key : misses) {
+                V value = loaded != null ? loaded.get(key) : null;
                 if (value != null) {
-                    l1Stats.recordHit();
-                    return value;
+                    toStore.put(key, value);
+                    result.put(key, value);
+                } else if (cachesNull()) {
+                    toStore.put(key, null);
                 }
-                l1Stats.recordMiss();
-                
-                // If not in L1, try L2 cache
-                value = l2Cache.get(key, valueLoader);
-                if (value != null) {
-                    l2Stats.recordHit();
-                    // Populate L1 cache from L2
-                    l1Cache.put(key, value);
-                }else {
-                    l2Stats.recordMiss();
+            }
+            putAll(toStore);
+            return orderedAs(keys, result);
+        }
+
+        private static <K, V> Map<K, V> orderedAs(Collection<? extends K> keys, Map<K, V> values) {
+            Map<K, V> ordered = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+            for (K key : keys) {
+                if (values.containsKey(key)) {
+                    ordered.put(key, values.get(key));
                 }
-                
-                return value;
-            } catch (Exception e) {
-                throw new ValueRetrievalException(key, valueLoader, e);
             }
+            return ordered;
+        }
+
+        /**
+         * 批量读取 L2，Redis 缓存走一次 MGET，其他实现退化为逐个读取
+         */
+        private Map<Object, CacheEntry> l2Entries(Collection<?> keys) {
+            Cache l2Cache = this.l2Cache;
+            if (!(l2Cache instanceof BulkRedisCache)) {
+                Map<Object, CacheEntry> entries = new HashMap<>();
+                for (Object key : keys) {
+                    CacheEntry entry = l2Entry(key);
+                    if (entry != null) {
+                        entries.put(key, entry);
+                    }
+                }
+                return entries;
+            }
+            Map<Object, Object> stored;
+            try {
+                stored = ((BulkRedisCache) l2Cache).getAll(keys);
+            } catch (SerializationException e) {
+                // 个别值无法解析时整批按未命中处理，由回源结果覆盖
+                logger.warn("L2 批量读取反序列化失败，按未命中处理 cache={} keys={}", name, keys.size(), e);
+                return Collections.emptyMap();
+            }
+            Map<Object, CacheEntry> entries = new HashMap<>(stored.size() * 4 / 3 + 1);
+            stored.forEach((key, value) -> entries.put(key, asEntry(value)));
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null) {
+                for (Object key : keys) {
+                    CacheEntry pending = buffer.pending(key);
+                    if (pending != null && pending.isTombstone()) {
+                        entries.remove(key);
+                    } else if (pending != null) {
+                        entries.put(key, pending);
+                    }
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * 批量写入：L2 在一个 pipeline 中完成，L1 逐个按版本写入，同步消息按 key 发布（失效模式下由发布器合并）
+         */
+        public void putAll(Map<?, ?> values) {
+            if (values.isEmpty()) {
+                return;
+            }
+            Map<Object, CacheEntry> entries = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+            values.forEach((key, value) -> {
+                if (value == null && !cachesNull()) {
+                    evict(key);
+                } else {
+                    entries.put(key, new CacheEntry(value, clock.now(), nodeId));
+                }
+            });
+
+            // 写后模式下缓冲区放不下的部分同步写入
+            Map<Object, CacheEntry> direct = entries;
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null) {
+                direct = new LinkedHashMap<>();
+                for (Map.Entry<Object, CacheEntry> entry : entries.entrySet()) {
+                    if (!enqueueWrite(buffer, entry.getKey(), entry.getValue())) {
+                        direct.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            Cache l2Cache = this.l2Cache;
+            if (l2Cache instanceof BulkRedisCache) {
+                ((BulkRedisCache) l2Cache).writeAll(direct, value -> l2Ttl((CacheEntry) value),
+                        Collections.emptyList(), this::tagsOf);
+            } else {
+                direct.forEach(l2Cache::put);
+            }
+            for (Map.Entry<Object, CacheEntry> entry : entries.entrySet()) {
+                storeL1(entry.getKey(), entry.getValue());
+                if (!entry.getValue().isNegative()) {
+                    markExists(entry.getKey());
+                }
+            }
+            direct.forEach(this::publishWrite);
         }
 
         @Override
         public void put(Object key, Object value) {
+            if (value == null && !cachesNull()) {
+                // 未开启空值缓存，写入 null 等同于删除
+                evict(key);
+                return;
+            }
+            CacheEntry entry = new CacheEntry(value, clock.now(), nodeId);
+            WriteBehindBuffer buffer = this.writeBehind;
+            boolean queued = buffer != null && enqueueWrite(buffer, key, entry);
             // Write to both caches
-            l2Cache.put(key, value);
-            l1Cache.put(key, value);
-            
-            // Publish cache update event for other instances
-            publishCacheUpdate(key, value);
+            if (!queued) {
+                putL2(key, entry);
+            }
+            storeL1(key, entry);
+            if (value != null) {
+                markExists(key);
+            }
+
+            // Publish cache update event for other instances；写后模式下随 L2 写入一起发布
+            if (!queued) {
+                publishWrite(key, entry);
+            }
+        }
+
+        /**
+         * 登记到写后缓冲，缓冲区已满时返回 false，由调用方同步写入
+         */
+        private boolean enqueueWrite(WriteBehindBuffer buffer, Object key, CacheEntry entry) {
+            if (!buffer.offer(key, entry)) {
+                metrics.recordWriteBehindRejected();
+                return false;
+            }
+            if (buffer.shouldFlushNow()) {
+                try {
+                    writeBehindExecutor.execute(this::flushWriteBehind);
+                } catch (RejectedExecutionException e) {
+                    // 已关闭，停机流程会同步刷新
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 把写后缓冲中的写入与删除按批写入 L2，写入成功后发布同步消息；失败的批次留在缓冲区等待下次刷新
+         */
+        void flushWriteBehind() {
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null) {
+                flushWriteBehind(buffer);
+            }
+        }
+
+        private void flushWriteBehind(WriteBehindBuffer buffer) {
+            if (buffer.size() == 0) {
+                return;
+            }
+            try {
+                metrics.recordWriteBehindFlush(buffer.flush(this::writeBatch));
+            } catch (RuntimeException e) {
+                metrics.recordWriteBehindFailure();
+                logger.warn("写后缓冲刷新失败，稍后重试 cache={} pending={}", name, buffer.size(), e);
+            }
+        }
+
+        private void writeBatch(Map<Object, CacheEntry> batch) {
+            Map<Object, CacheEntry> puts = new LinkedHashMap<>();
+            List<Object> deletes = new ArrayList<>();
+            batch.forEach((key, entry) -> {
+                if (entry.isTombstone()) {
+                    deletes.add(key);
+                } else {
+                    puts.put(key, entry);
+                }
+            });
+            Cache l2Cache = this.l2Cache;
+            if (l2Cache instanceof BulkRedisCache) {
+                ((BulkRedisCache) l2Cache).writeAll(puts, value -> l2Ttl((CacheEntry) value), deletes, this::tagsOf);
+            } else {
+                puts.forEach(l2Cache::put);
+                deletes.forEach(l2Cache::evict);
+            }
+            puts.forEach(this::publishWrite);
+            if (!serverTracked) {
+                for (Object key : deletes) {
+                    invalidationPublisher.invalidate(name, key, batch.get(key).getVersion(), false);
+                }
+            }
+        }
+
+        private void putL2(Object key, CacheEntry entry) {
+            Cache l2Cache = this.l2Cache;
+            if (l2Cache instanceof BulkRedisCache) {
+                ((BulkRedisCache) l2Cache).put(key, entry, l2Ttl(entry), tagsOf(key, entry));
+            } else {
+                l2Cache.put(key, entry);
+            }
+        }
+
+        /**
+         * 写入 L2 的 TTL，在配置值的基础上按 ttl-jitter 随机缩短
+         */
+        private Duration l2Ttl(CacheEntry entry) {
+            Duration ttl = baseL2Ttl(entry);
+            return Duration.ofMillis(CacheSpecSupport.jitter(ttl.toMillis(), spec.getTtlJitter()));
+        }
+
+        /**
+         * 空值使用 negative-ttl，其余使用 l2-ttl
+         */
+        private Duration baseL2Ttl(CacheEntry entry) {
+            MultiLevelCacheProperties.CacheSpec spec = this.spec;
+            return entry.isNegative() && spec.getNegativeTtl() != null ? spec.getNegativeTtl() : spec.getL2Ttl();
+        }
+
+        private void publishWrite(Object key, CacheEntry entry) {
+            if (serverTracked) {
+                return;
+            }
+            if (spec.getSyncMode() == MultiLevelCacheProperties.SyncMode.INVALIDATE) {
+                // 只广播失效，其他节点下次访问时从 L2 拉取，避免大值按节点数放大 pub/sub 流量
+                invalidationPublisher.invalidate(name, key, entry.getVersion(), true);
+            } else {
+                publishCacheUpdate(key, entry);
+            }
         }
 
         @Override
         public void evict(Object key) {
-            // Remove from both caches
+            long version = clock.now();
+            CacheEntry tombstone = CacheEntry.tombstone(version, nodeId);
+            metrics.recordEviction();
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null && enqueueWrite(buffer, key, tombstone)) {
+                // 删除与之前的写入走同一个缓冲，保证到达 L2 的顺序
+                storeL1(key, tombstone);
+                return;
+            }
+            // Remove from both caches，L1 中的旧值换成 tombstone，拒绝之后到达的旧版本更新
             l2Cache.evict(key);
-            l1Cache.evict(key);
-            
-            // Publish cache eviction event for other instances
-            publishCacheEviction(key);
+            storeL1(key, tombstone);
+
+            // 登记到失效发布器，短时间窗口内的失效会合并为一条批量消息
+            if (!serverTracked) {
+                invalidationPublisher.invalidate(name, key, version, false);
+            }
         }
 
         @Override
         public void clear() {
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null) {
+                buffer.clear();
+            }
             l2Cache.clear();
             l1Cache.clear();
 
-            // 发布缓存清空事件到其他实例
-            redisTemplate.convertAndSend("cache:clear", name);
+            // 发布缓存清空事件到其他实例；CLIENT TRACKING 下由 L2 删除的 key 逐个推送失效
+            if (!serverTracked) {
+                invalidationPublisher.publishClear(name);
+            }
 
         }
 
-        @Override
-        public ValueWrapper putIfAbsent(Object key, Object value) {
-            // 这是一个简化实现
-            ValueWrapper existingValue = get(key);
-            if (existingValue == null) {
-                put(key, value);
-                return null;
+        private Collection<String> tagsOf(Object key, Object stored) {
+            CacheTagResolver tagResolver = this.tagResolver;
+            if (tagResolver == null || !(stored instanceof CacheEntry)) {
+                return Collections.emptyList();
+            }
+            CacheEntry entry = (CacheEntry) stored;
+            if (entry.isTombstone() || entry.isNegative()) {
+                return Collections.emptyList();
             }
-            return existingValue;
+            Collection<String> tags = tagResolver.tags(key, entry.getValue());
+            return tags != null ? tags : Collections.emptyList();
         }
 
-        private void publishCacheUpdate(Object key, Object value) {
-            // 发布到Redis pub/sub，通知其他实例更新它们的L1缓存
-            redisTemplate.convertAndSend("cache:update", new CacheUpdateEvent(name, key, value));
+        /**
+         * 失效带有指定标签的条目：两级缓存中只删除这些 key，其他节点按 key 失效，不再清空整个缓存
+         *
+         * @return 失效的 key 数量
+         */
+        public int evictByTag(String tag) {
+            Cache l2Cache = this.l2Cache;
+            if (!(l2Cache instanceof BulkRedisCache)) {
+                return 0;
+            }
+            List<Object> keys = ((BulkRedisCache) l2Cache).popTag(tag);
+            evictAll(keys);
+            return keys.size();
         }
 
-        private void publishCacheEviction(Object key) {
-            // 发布到Redis pub/sub，通知其他实例使它们的L1缓存失效
-            redisTemplate.convertAndSend("cache:evict", new CacheEvictionEvent(name, key));
+        /**
+         * 失效带有指定标签、且 key 满足条件的条目，失效的 key 从标签集合中移除，其余保留
+         *
+         * @return 失效的 key 数量
+         */
+        public int evictByTag(String tag, Predicate<Object> keyFilter) {
+            Cache l2Cache = this.l2Cache;
+            if (!(l2Cache instanceof BulkRedisCache)) {
+                return 0;
+            }
+            List<Object> keys = new ArrayList<>();
+            for (Object key : ((BulkRedisCache) l2Cache).tagMembers(tag)) {
+                if (keyFilter.test(key)) {
+                    keys.add(key);
+                }
+            }
+            // 先移出标签集合再删除：删除后重新加载的结果会重新加入集合，不会被这次移除抹掉
+            ((BulkRedisCache) l2Cache).removeFromTag(tag, keys);
+            evictAll(keys);
+            return keys.size();
         }
-        // 添加获取统计信息的方法
-        public Map<String, Object> getStats() {
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("l1", l1Stats.snapshot());
-            stats.put("l2", l2Stats.snapshot());
-            return stats;
+
+        /**
+         * 批量删除：L2 在一个 pipeline 中删除，失效消息由发布器合并
+         */
+        public void evictAll(Collection<?> keys) {
+            if (keys.isEmpty()) {
+                return;
+            }
+            Cache l2Cache = this.l2Cache;
+            if (this.writeBehind != null || !(l2Cache instanceof BulkRedisCache)) {
+                keys.forEach(this::evict);
+                return;
+            }
+            long version = clock.now();
+            ((BulkRedisCache) l2Cache).writeAll(Collections.emptyMap(), value -> null, keys, null);
+            for (Object key : keys) {
+                storeL1(key, CacheEntry.tombstone(version, nodeId));
+                metrics.recordEviction();
+                if (!serverTracked) {
+                    invalidationPublisher.invalidate(name, key, version, false);
+                }
+            }
         }
-    }
 
-    // 用于缓存同步的事件类
-    public static class CacheUpdateEvent {
-        private final String cacheName;
-        private final Object key;
-        private final Object value;
+        /**
+         * 异步读取，L2 经 Lettuce 响应式连接访问，不阻塞调用线程
+         * <p>
+         * L1 命中时返回已完成的 future；否则回调在 Redis I/O 线程上完成，后续处理中如有阻塞操作应切换到其他线程。
+         *
+         * @return 完成值为缓存值，未命中时为 null
+         */
+        public CompletableFuture<Object> getAsync(Object key) {
+            return lookupAsync(key).thenApply(entry -> entry != null ? entry.getValue() : null);
+        }
 
-        public CacheUpdateEvent(String cacheName, Object key, Object value) {
-            this.cacheName = cacheName;
-            this.key = key;
-            this.value = value;
+        /**
+         * 异步读取，两级缓存都未命中时调用 loader 异步加载并写入缓存
+         * <p>
+         * 与同步的 get(key, Callable) 共用同一个 JVM 内的单飞加载；不参与跨节点加载租约，避免在异步路径上轮询等待。
+         */
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<T> getAsync(Object key, Supplier<? extends CompletableFuture<T>> loader) {
+            return lookupAsync(key).thenCompose(entry -> {
+                if (entry != null) {
+                    if (shouldRefresh(entry)) {
+                        // 后台重新加载，与其他回源共用 loadingFutures，本次仍返回当前值
+                        loadAsync(key, loader);
+                    }
+                    return CompletableFuture.completedFuture((T) entry.getValue());
+                }
+                if (!mightExist(key)) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                return (CompletableFuture<T>) loadAsync(key, loader);
+            });
         }
 
-        // Getters
-        public String getCacheName() { return cacheName; }
-        public Object getKey() { return key; }
-        public Object getValue() { return value; }
-    }
+        private CompletableFuture<Object> loadAsync(Object key, Supplier<? extends CompletableFuture<?>> loader) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> inFlight = loadingFutures.putIfAbsent(key, future);
+            if (inFlight != null) {
+                return inFlight;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<?> loading;
+            try {
+                loading = loader.get();
+            } catch (RuntimeException | Error e) {
+                loading = new CompletableFuture<>();
+                loading.completeExceptionally(e);
+            }
+            loading.whenComplete((value, e) -> {
+                recordLoad(e == null, System.nanoTime() - start);
+                if (e == null && (value != null || cachesNull())) {
+                    // L1 立即可见，L2 写入与广播在后台完成
+                    putAsync(key, value);
+                }
+                loadingFutures.remove(key, future);
+                if (e != null) {
+                    future.completeExceptionally(e);
+                } else {
+                    future.complete(value);
+                }
+            });
+            return future;
+        }
 
-    public static class CacheEvictionEvent {
-        private final String cacheName;
-        private final Object key;
+        /**
+         * 异步写入：L1 在调用线程上立即更新，L2 写入与同步消息在后台完成，调用方可以不等待返回的 future
+         * <p>
+         * L2 写入失败时撤回本节点的 L1 条目，future 以该异常结束。
+         */
+        public CompletableFuture<Void> putAsync(Object key, Object value) {
+            if (value == null && !cachesNull()) {
+                return evictAsync(key);
+            }
+            CacheEntry entry = new CacheEntry(value, clock.now(), nodeId);
+            storeL1(key, entry);
+            if (value != null) {
+                markExists(key);
+            }
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null && enqueueWrite(buffer, key, entry)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return putL2Async(key, entry).whenComplete((ignored, e) -> {
+                if (e != null) {
+                    logger.warn("L2 异步写入失败，撤回 L1 cache={} key={}", name, key, e);
+                    storeL1(key, CacheEntry.tombstone(clock.now(), nodeId));
+                } else {
+                    publishWriteAsync(key, entry);
+                }
+            });
+        }
 
-        public CacheEvictionEvent(String cacheName, Object key) {
-            this.cacheName = cacheName;
-            this.key = key;
+        /**
+         * 异步删除：L1 立即留下 tombstone，L2 删除完成后登记失效广播
+         */
+        public CompletableFuture<Void> evictAsync(Object key) {
+            long version = clock.now();
+            CacheEntry tombstone = CacheEntry.tombstone(version, nodeId);
+            storeL1(key, tombstone);
+            metrics.recordEviction();
+            WriteBehindBuffer buffer = this.writeBehind;
+            if (buffer != null && enqueueWrite(buffer, key, tombstone)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Cache l2Cache = this.l2Cache;
+            CompletableFuture<Void> l2Evict;
+            if (l2Cache instanceof BulkRedisCache) {
+                l2Evict = ((BulkRedisCache) l2Cache).evictAsync(key);
+            } else {
+                l2Cache.evict(key);
+                l2Evict = CompletableFuture.completedFuture(null);
+            }
+            return l2Evict.whenComplete((ignored, e) -> {
+                if (e != null) {
+                    logger.warn("L2 异步删除失败 cache={} key={}", name, key, e);
+                } else if (!serverTracked) {
+                    invalidationPublisher.invalidate(name, key, version, false);
+                }
+            });
         }
 
-        // Getters
-        public String getCacheName() { return cacheName; }
-        public Object getKey() { return key; }
-    }
+        private CompletableFuture<Void> putL2Async(Object key, CacheEntry entry) {
+            Cache l2Cache = this.l2Cache;
+            if (l2Cache instanceof BulkRedisCache) {
+                return ((BulkRedisCache) l2Cache).putAsync(key, entry, l2Ttl(entry), tagsOf(key, entry));
+            }
+            l2Cache.put(key, entry);
+            return CompletableFuture.completedFuture(null);
+        }
 
-    // 在 MultiLevelCache 类中添加这个内部类
-    private static class CacheStats {
-        private final AtomicLong hits = new AtomicLong();
-        private final AtomicLong misses = new AtomicLong();
+        /**
+         * publishWrite 的非阻塞版本，更新消息的编码与发布在发布器线程上完成
+         */
+        private void publishWriteAsync(Object key, CacheEntry entry) {
+            if (serverTracked) {
+                return;
+            }
+            if (spec.getSyncMode() == MultiLevelCacheProperties.SyncMode.INVALIDATE) {
+                invalidationPublisher.invalidate(name, key, entry.getVersion(), true);
+            } else {
+                invalidationPublisher.publishUpdateAsync(name, key, entry.getVersion(),
+                        () -> ByteUtils.getBytes(syncSerializer.write(entry.getValue())));
+            }
+        }
 
-        public void recordHit() {
-            hits.incrementAndGet();
+        /**
+         * L2 通过 SET NX 原子决定胜者，只有写入成功的一方回填 L1 并广播；失败方以已存在的值回填 L1 并返回
+         */
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            CacheEntry current = l1Entry(key);
+            if (current != null) {
+                return new SimpleValueWrapper(current.getValue());
+            }
+            if (value == null && !cachesNull()) {
+                return get(key);
+            }
+            WriteBehindBuffer buffer = this.writeBehind;
+            CacheEntry pending = buffer != null ? buffer.pending(key) : null;
+            if (pending != null && !pending.isTombstone()) {
+                return new SimpleValueWrapper(pending.getValue());
+            }
+            if (pending != null) {
+                // 缓冲中的删除尚未到达 L2，先写出再由 SET NX 判断
+                flushWriteBehind(buffer);
+            }
+            CacheEntry entry = new CacheEntry(value, clock.now(), nodeId);
+            Cache l2Cache = this.l2Cache;
+            ValueWrapper existing;
+            try {
+                existing = l2Cache instanceof BulkRedisCache
+                        ? ((BulkRedisCache) l2Cache).putIfAbsent(key, entry, l2Ttl(entry))
+                        : l2Cache.putIfAbsent(key, entry);
+            } catch (SerializationException e) {
+                // 已存在的值无法解析，沿用 put 的语义由新值覆盖
+                logger.warn("L2 缓存值无法反序列化，覆盖写入 cache={} key={}", name, key, e);
+                put(key, value);
+                return null;
+            }
+            if (existing == null) {
+                if (l2Cache instanceof BulkRedisCache) {
+                    ((BulkRedisCache) l2Cache).addTags(key, tagsOf(key, entry));
+                }
+                storeL1(key, entry);
+                if (value != null) {
+                    markExists(key);
+                }
+                publishWrite(key, entry);
+                return null;
+            }
+            CacheEntry winner = asEntry(existing.get());
+            storeL1(key, winner);
+            return new SimpleValueWrapper(winner.getValue());
+        }
+
+        /**
+         * 应用其他节点的更新，只有版本更新时才反序列化并写入 L1
+         */
+        public void applyRemoteUpdate(CacheSyncCodec.UpdateFrame frame) {
+            metrics.recordMessageIn();
+            recordSyncLag(frame.getVersion());
+            clock.update(frame.getVersion());
+            CacheEntry current = l1Header(frame.getKey());
+            if (current != null && current.getVersion() > frame.getVersion()) {
+                return;
+            }
+            Object value = syncSerializer.read(ByteBuffer.wrap(frame.getValue()));
+            if (value != null) {
+                markExists(frame.getKey());
+            }
+            CacheEntry entry = new CacheEntry(value, frame.getVersion(), frame.getOrigin());
+            entry.recordSerializedSize(frame.getValue().length);
+            storeL1(frame.getKey(), entry);
+        }
+
+        /**
+         * 应用其他节点的失效，在 L1 中以 tombstone 替换旧版本
+         *
+         * @param write 失效由写入引起，key 已存在于 L2，加入 Bloom 过滤器；删除引起的失效不加入
+         */
+        public void applyRemoteInvalidation(Object key, long version, String origin, boolean write) {
+            recordSyncLag(version);
+            clock.update(version);
+            if (write) {
+                markExists(key);
+            }
+            storeL1(key, CacheEntry.tombstone(version, origin));
+        }
+
+        /**
+         * 应用 Redis CLIENT TRACKING 推送的失效
+         * <p>
+         * 推送只有 L2 的字符串 key，按 L1 中观察到的 key 类型还原；无法还原时清空整个 L1。
+         * 推送不带版本，以本地时钟的当前值作为 tombstone 版本，拒绝在此之前从 L2 读到的旧值回填。
+         *
+         * @param l2Key 去掉缓存前缀后的 Redis key
+         */
+        void applyTrackedInvalidation(String l2Key) {
+            Object key = l1Key(l2Key);
+            if (key == null) {
+                applyRemoteClear();
+                return;
+            }
+            metrics.recordMessageIn();
+            storeL1(key, CacheEntry.tombstone(clock.now(), nodeId));
+        }
+
+        private Object l1Key(String l2Key) {
+            Class<?> keyType = this.keyType;
+            if (keyType == null || keyType == String.class) {
+                return l2Key;
+            }
+            ConversionService conversionService = DefaultConversionService.getSharedInstance();
+            if (keyType == Object.class || !conversionService.canConvert(String.class, keyType)) {
+                return null;
+            }
+            try {
+                return conversionService.convert(l2Key, keyType);
+            } catch (ConversionException e) {
+                return null;
+            }
+        }
+
+        private void recordSyncLag(long version) {
+            metrics.recordSyncLag(System.currentTimeMillis() - HybridLogicalClock.physicalTime(version));
         }
 
-        public void recordMiss() {
-            misses.incrementAndGet();
+        /**
+         * 应用其他节点的清空，只清本地 L1
+         */
+        public void applyRemoteClear() {
+            metrics.recordMessageIn();
+            l1Cache.clear();
         }
 
-        public Map<String, Object> snapshot() {
-            long hitCount = hits.get();
-            long missCount = misses.get();
-            long total = hitCount + missCount;
-            double hitRate = total > 0 ? (double) hitCount / total : 0;
-            double missRate = total > 0 ? (double) missCount / total : 0;
+        private void publishCacheUpdate(Object key, CacheEntry entry) {
+            // 发布到Redis pub/sub，通知其他实例更新它们的L1缓存
+            invalidationPublisher.publishUpdate(name, key, entry.getVersion(),
+                    ByteUtils.getBytes(syncSerializer.write(entry.getValue())));
+        }
 
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("hits", hitCount);
-            stats.put("misses", missCount);
-            stats.put("total", total);
-            stats.put("hitRate", String.format("%.2f%%", hitRate * 100));
-            stats.put("missRate", String.format("%.2f%%", missRate * 100));
+        /**
+         * 分层统计快照，命中率为 0~1 之间的小数
+         */
+        public Map<String, Object> getStats() {
+            Map<String, Object> stats = metrics.snapshot();
+            Cache l1Cache = this.l1Cache;
+            if (l1Cache instanceof OffHeapCache) {
+                stats.put("offHeap", ((OffHeapCache) l1Cache).getStats());
+            }
             return stats;
         }
     }
-
 }
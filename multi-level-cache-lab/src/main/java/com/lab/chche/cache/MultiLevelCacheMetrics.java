@@ -0,0 +1,276 @@
+package com.lab.chche.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个多级缓存的指标，计数使用 LongAdder，高并发读取时不会在同一个原子变量上竞争
+ * <p>
+ * 计数器以 FunctionCounter 的形式注册到 Micrometer，耗时直接记录到带直方图的 Timer，
+ * 可通过 /actuator/prometheus 按 cache、tier 等标签聚合。
+ */
+public class MultiLevelCacheMetrics {
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // 重建 L1 前累计的容量淘汰数，保证计数单调递增
+    private final LongAdder l1SizeEvictionBase = new LongAdder();
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder bloomRejections = new LongAdder();
+    private final LongAdder writeBehindFlushed = new LongAdder();
+    private final LongAdder writeBehindFailed = new LongAdder();
+    // 缓冲区已满、改为同步写入的次数
+    private final LongAdder writeBehindRejected = new LongAdder();
+    // 处理队列已满、更新降级为失效的 key 数
+    private final LongAdder syncDropped = new LongAdder();
+    // L2 命中后经准入过滤写入 / 未写入 L1 的次数
+    private final LongAdder l1Admitted = new LongAdder();
+    private final LongAdder l1AdmissionRejected = new LongAdder();
+
+    private final Timer l1GetTimer;
+    private final Timer l2GetTimer;
+    private final Timer loadTimer;
+    private final Timer syncLagTimer;
+    private final DoubleSupplier l1UsedBytes;
+    private final DoubleSupplier l1BudgetBytes;
+
+    /**
+     * @param l1Size              当前 L1 条目数
+     * @param l1SizeEvictions     当前 L1 实例的容量/过期淘汰数
+     * @param writeBehindPending  写后缓冲中等待写入 L2 的条目数
+     * @param l1UsedBytes         L1 当前占用的字节数，L1 不按字节限制时为 NaN
+     * @param l1BudgetBytes       L1 的字节预算，L1 不按字节限制时为 NaN
+     */
+    public MultiLevelCacheMetrics(String cacheName, MeterRegistry registry,
+                                  LongSupplier l1Size, LongSupplier l1SizeEvictions,
+                                  LongSupplier writeBehindPending,
+                                  DoubleSupplier l1UsedBytes, DoubleSupplier l1BudgetBytes) {
+        this.l1UsedBytes = l1UsedBytes;
+        this.l1BudgetBytes = l1BudgetBytes;
+        Tags tags = Tags.of("cache", cacheName);
+        counter(registry, "cache.multilevel.gets", tags.and("tier", "l1", "result", "hit"), l1Hits);
+        counter(registry, "cache.multilevel.gets", tags.and("tier", "l1", "result", "miss"), l1Misses);
+        counter(registry, "cache.multilevel.gets", tags.and("tier", "l2", "result", "hit"), l2Hits);
+        counter(registry, "cache.multilevel.gets", tags.and("tier", "l2", "result", "miss"), l2Misses);
+        counter(registry, "cache.multilevel.loads", tags.and("result", "success"), loadSuccesses);
+        counter(registry, "cache.multilevel.loads", tags.and("result", "failure"), loadFailures);
+        counter(registry, "cache.multilevel.evictions", tags.and("cause", "explicit"), evictions);
+        FunctionCounter.builder("cache.multilevel.evictions", l1SizeEvictionBase,
+                        base -> base.sum() + l1SizeEvictions.getAsLong())
+                .tags(tags.and("cause", "size"))
+                .description("L1 按容量或过期淘汰的条目数")
+                .register(registry);
+        counter(registry, "cache.multilevel.sync.messages", tags.and("direction", "in"), messagesIn);
+        counter(registry, "cache.multilevel.sync.messages", tags.and("direction", "out"), messagesOut);
+        counter(registry, "cache.multilevel.sync.dropped", tags, syncDropped);
+        counter(registry, "cache.multilevel.l1.admissions", tags.and("result", "admitted"), l1Admitted);
+        counter(registry, "cache.multilevel.l1.admissions", tags.and("result", "rejected"), l1AdmissionRejected);
+        counter(registry, "cache.multilevel.negative", tags.and("result", "hit"), negativeHits);
+        counter(registry, "cache.multilevel.negative", tags.and("result", "bloom_rejected"), bloomRejections);
+        counter(registry, "cache.multilevel.writebehind.writes", tags.and("result", "flushed"), writeBehindFlushed);
+        counter(registry, "cache.multilevel.writebehind.writes", tags.and("result", "failed"), writeBehindFailed);
+        counter(registry, "cache.multilevel.writebehind.writes", tags.and("result", "rejected"), writeBehindRejected);
+        Gauge.builder("cache.multilevel.l1.size", l1Size, LongSupplier::getAsLong)
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("cache.multilevel.l1.bytes", l1UsedBytes, DoubleSupplier::getAsDouble)
+                .tags(tags.and("kind", "used"))
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("cache.multilevel.l1.bytes", l1BudgetBytes, DoubleSupplier::getAsDouble)
+                .tags(tags.and("kind", "budget"))
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("cache.multilevel.writebehind.pending", writeBehindPending, LongSupplier::getAsLong)
+                .tags(tags)
+                .register(registry);
+
+        this.l1GetTimer = timer(registry, tags.and("operation", "l1.get"));
+        this.l2GetTimer = timer(registry, tags.and("operation", "l2.get"));
+        this.loadTimer = timer(registry, tags.and("operation", "load"));
+        this.syncLagTimer = Timer.builder("cache.multilevel.sync.lag")
+                .description("同步消息从发出到应用到本地 L1 的延迟，依赖节点间时钟同步")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, Tags tags, LongAdder adder) {
+        FunctionCounter.builder(name, adder, LongAdder::sum).tags(tags).register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, Tags tags) {
+        return Timer.builder("cache.multilevel.latency")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordL1(boolean hit, long nanos) {
+        (hit ? l1Hits : l1Misses).increment();
+        l1GetTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordL2(boolean hit, long nanos) {
+        (hit ? l2Hits : l2Misses).increment();
+        l2GetTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 批量读取按一次调用记录耗时，命中与未命中按 key 计数
+     */
+    public void recordL1Batch(int hits, int misses, long nanos) {
+        l1Hits.add(hits);
+        l1Misses.add(misses);
+        l1GetTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordL2Batch(int hits, int misses, long nanos) {
+        l2Hits.add(hits);
+        l2Misses.add(misses);
+        l2GetTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLoad(boolean success, long nanos) {
+        (success ? loadSuccesses : loadFailures).increment();
+        loadTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * L1 实例被替换前调用，把旧实例的淘汰数累加到基数中
+     */
+    public void retireL1(long sizeEvictions) {
+        l1SizeEvictionBase.add(sizeEvictions);
+    }
+
+    public void recordMessageIn() {
+        messagesIn.increment();
+    }
+
+    public void recordMessageOut() {
+        messagesOut.increment();
+    }
+
+    /**
+     * @param lagMillis 消息版本中的物理时间到应用时刻的间隔，时钟偏差导致的负值按 0 记录
+     */
+    public void recordSyncLag(long lagMillis) {
+        syncLagTimer.record(Math.max(0L, lagMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordSyncDropped() {
+        syncDropped.increment();
+    }
+
+    /**
+     * L2 命中后的 L1 准入结果，只在开启准入过滤时记录
+     */
+    public void recordL1Admission(boolean admitted) {
+        (admitted ? l1Admitted : l1AdmissionRejected).increment();
+    }
+
+    /**
+     * 命中了缓存的空值
+     */
+    public void recordNegativeHit() {
+        negativeHits.increment();
+    }
+
+    /**
+     * 两级缓存都未命中，Bloom 过滤器判断 key 不存在而跳过回源
+     */
+    public void recordBloomRejection() {
+        bloomRejections.increment();
+    }
+
+    public void recordWriteBehindFlush(int count) {
+        writeBehindFlushed.add(count);
+    }
+
+    public void recordWriteBehindFailure() {
+        writeBehindFailed.increment();
+    }
+
+    public void recordWriteBehindRejected() {
+        writeBehindRejected.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("l1", tierSnapshot(l1Hits.sum(), l1Misses.sum(), l1GetTimer));
+        stats.put("l2", tierSnapshot(l2Hits.sum(), l2Misses.sum(), l2GetTimer));
+
+        Map<String, Object> loads = new HashMap<>();
+        loads.put("success", loadSuccesses.sum());
+        loads.put("failure", loadFailures.sum());
+        loads.put("meanMillis", loadTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("loads", loads);
+
+        stats.put("evictions", evictions.sum());
+        Map<String, Object> messages = new HashMap<>();
+        messages.put("in", messagesIn.sum());
+        messages.put("out", messagesOut.sum());
+        messages.put("dropped", syncDropped.sum());
+        messages.put("lagMeanMillis", syncLagTimer.mean(TimeUnit.MILLISECONDS));
+        messages.put("lagMaxMillis", syncLagTimer.max(TimeUnit.MILLISECONDS));
+        stats.put("syncMessages", messages);
+        Map<String, Long> admission = new HashMap<>();
+        admission.put("admitted", l1Admitted.sum());
+        admission.put("rejected", l1AdmissionRejected.sum());
+        stats.put("l1Admission", admission);
+        stats.put("negativeHits", negativeHits.sum());
+        stats.put("bloomRejections", bloomRejections.sum());
+        Map<String, Long> writeBehind = new HashMap<>();
+        writeBehind.put("flushed", writeBehindFlushed.sum());
+        writeBehind.put("failed", writeBehindFailed.sum());
+        writeBehind.put("rejected", writeBehindRejected.sum());
+        stats.put("writeBehind", writeBehind);
+        double budgetBytes = l1BudgetBytes.getAsDouble();
+        if (!Double.isNaN(budgetBytes)) {
+            Map<String, Object> l1Bytes = new HashMap<>();
+            l1Bytes.put("used", (long) l1UsedBytes.getAsDouble());
+            l1Bytes.put("budget", (long) budgetBytes);
+            stats.put("l1Bytes", l1Bytes);
+        }
+
+        // 整体命中率：L1 或 L2 任一命中即算命中
+        long requests = l1Hits.sum() + l1Misses.sum();
+        long hits = l1Hits.sum() + l2Hits.sum();
+        stats.put("hitRate", requests > 0 ? (double) hits / requests : 0.0);
+        stats.put("missRate", requests > 0 ? 1.0 - (double) hits / requests : 0.0);
+        return stats;
+    }
+
+    private static Map<String, Object> tierSnapshot(long hits, long misses, Timer timer) {
+        long total = hits + misses;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("total", total);
+        stats.put("hitRate", total > 0 ? (double) hits / total : 0.0);
+        stats.put("missRate", total > 0 ? (double) misses / total : 0.0);
+        stats.put("meanMicros", timer.mean(TimeUnit.MICROSECONDS));
+        return stats;
+    }
+}
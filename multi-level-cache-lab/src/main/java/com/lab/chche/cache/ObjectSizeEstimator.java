@@ -0,0 +1,151 @@
+package com.lab.chche.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 粗略估算对象图占用的堆内字节数，用作 L1 的权重
+ * <p>
+ * 按 64 位 JVM、开启压缩指针估算：对象头 12 字节、引用 4 字节、按 8 字节对齐。
+ * 集合与 Map 不反射 JDK 内部字段，按元素个数加固定的节点开销估算；其他 JDK 类型只计算自身字段。
+ * 同一对象只计算一次，超过最大深度的部分忽略。结果只用于比较条目大小，不是精确值。
+ */
+final class ObjectSizeEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    // ArrayList/HashSet 等容器对象自身及其内部数组头
+    private static final int COLLECTION_OVERHEAD = 40;
+    // HashMap.Node：对象头 + hash + key/value/next 引用
+    private static final int MAP_ENTRY = 32;
+    private static final int MAX_DEPTH = 16;
+
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return new ClassLayout(type);
+        }
+    };
+
+    private ObjectSizeEstimator() {
+    }
+
+    static long estimate(Object value) {
+        return estimate(value, new IdentityHashMap<>(), 0);
+    }
+
+    private static long estimate(Object value, Map<Object, Boolean> visited, int depth) {
+        if (value == null || depth > MAX_DEPTH || value instanceof Enum || value instanceof Class
+                || visited.put(value, Boolean.TRUE) != null) {
+            return 0L;
+        }
+        if (value instanceof String) {
+            // String 对象 + char[]
+            return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + 2L * ((String) value).length());
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return array(value, type.getComponentType(), visited, depth);
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long perElement = value instanceof Set ? MAP_ENTRY + REFERENCE : REFERENCE;
+            long size = COLLECTION_OVERHEAD + perElement * collection.size();
+            for (Object element : collection) {
+                size += estimate(element, visited, depth + 1);
+            }
+            return align(size);
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            long size = COLLECTION_OVERHEAD + (long) (MAP_ENTRY + REFERENCE) * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimate(entry.getKey(), visited, depth + 1);
+                size += estimate(entry.getValue(), visited, depth + 1);
+            }
+            return align(size);
+        }
+        ClassLayout layout = LAYOUTS.get(type);
+        long size = layout.shallowSize;
+        for (Field field : layout.references) {
+            try {
+                size += estimate(field.get(value), visited, depth + 1);
+            } catch (IllegalAccessException e) {
+                // 无法访问的字段只计算引用本身
+            }
+        }
+        return size;
+    }
+
+    private static long array(Object array, Class<?> componentType, Map<Object, Boolean> visited, int depth) {
+        int length = Array.getLength(array);
+        if (componentType.isPrimitive()) {
+            return align(ARRAY_HEADER + (long) primitiveSize(componentType) * length);
+        }
+        long size = align(ARRAY_HEADER + (long) REFERENCE * length);
+        for (int i = 0; i < length; i++) {
+            size += estimate(Array.get(array, i), visited, depth + 1);
+        }
+        return size;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * 类的浅层大小与需要递归计算的引用字段，JDK 类型不递归
+     */
+    private static final class ClassLayout {
+        private final long shallowSize;
+        private final List<Field> references = new ArrayList<>();
+
+        ClassLayout(Class<?> type) {
+            boolean jdkType = type.getName().startsWith("java.") || type.getName().startsWith("javax.");
+            long size = OBJECT_HEADER;
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    size += fieldType.isPrimitive() ? primitiveSize(fieldType) : REFERENCE;
+                    if (!fieldType.isPrimitive() && !jdkType && trySetAccessible(field)) {
+                        references.add(field);
+                    }
+                }
+            }
+            this.shallowSize = align(size);
+        }
+
+        private static boolean trySetAccessible(Field field) {
+            try {
+                field.setAccessible(true);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.lab.chche.cache;
+
+import com.lab.chche.cache.serializer.ValueCodec;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 支持按缓存配置运行时重建 RedisCache 的 RedisCacheManager，创建的缓存均为支持批量读写的 {@link BulkRedisCache}
+ */
+public class ReconfigurableRedisCacheManager extends RedisCacheManager {
+
+    private final RedisCacheConfiguration baseConfiguration;
+    private final Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs;
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisCacheWriter cacheWriter;
+    // 重新配置后生成的缓存，优先于父类中启动时创建的实例
+    private final ConcurrentMap<String, RedisCache> reconfiguredCaches = new ConcurrentHashMap<>();
+
+    public ReconfigurableRedisCacheManager(RedisConnectionFactory connectionFactory,
+                                           RedisCacheWriter cacheWriter,
+                                           RedisCacheConfiguration baseConfiguration,
+                                           MultiLevelCacheProperties properties,
+                                           Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        super(cacheWriter,
+                CacheSpecSupport.redisConfiguration(baseConfiguration, properties.getDefaultSpec(), codecs),
+                initialConfigurations(baseConfiguration, properties, codecs));
+        this.baseConfiguration = baseConfiguration;
+        this.codecs = codecs;
+        this.connectionFactory = connectionFactory;
+        this.cacheWriter = cacheWriter;
+    }
+
+    private static Map<String, RedisCacheConfiguration> initialConfigurations(
+            RedisCacheConfiguration baseConfiguration, MultiLevelCacheProperties properties,
+            Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs) {
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        properties.getCaches().forEach((name, spec) ->
+                configurations.put(name, CacheSpecSupport.redisConfiguration(baseConfiguration, spec, codecs)));
+        return configurations;
+    }
+
+    @Override
+    protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
+        return new BulkRedisCache(name, cacheWriter, cacheConfig, connectionFactory);
+    }
+
+    /**
+     * 按缓存配置创建值序列化器，与该缓存写入 L2 的编码一致
+     */
+    public RedisSerializer<Object> valueSerializer(MultiLevelCacheProperties.CacheSpec spec) {
+        return CacheSpecSupport.serializer(spec, codecs);
+    }
+
+    /**
+     * 各格式的编解码实例，L1 按编码后大小加权时复用
+     */
+    public Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> getCodecs() {
+        return codecs;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        RedisCache cache = reconfiguredCaches.get(name);
+        return cache != null ? cache : super.getCache(name);
+    }
+
+    /**
+     * 按新配置重建缓存，已写入 Redis 的数据保留，只影响之后的读写（TTL、序列化方式）
+     */
+    public RedisCache reconfigure(String name, MultiLevelCacheProperties.CacheSpec spec) {
+        RedisCache cache = createRedisCache(name,
+                CacheSpecSupport.redisConfiguration(baseConfiguration, spec, codecs));
+        reconfiguredCaches.put(name, cache);
+        return cache;
+    }
+}
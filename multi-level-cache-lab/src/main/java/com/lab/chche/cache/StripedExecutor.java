@@ -0,0 +1,66 @@
+package com.lab.chche.cache;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 key 分段的有界执行器：每段一个线程和一个有界队列，同一段内的任务按提交顺序执行
+ * <p>
+ * 队列已满时不阻塞提交方，{@link #execute} 返回 false，由调用方决定降级方式。
+ */
+final class StripedExecutor {
+
+    private final ThreadPoolExecutor[] stripes;
+
+    StripedExecutor(String threadNamePrefix, int stripeCount, int queueCapacity) {
+        this.stripes = new ThreadPoolExecutor[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            String threadName = threadNamePrefix + "-" + i;
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                        Thread thread = new Thread(r, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * 同一个 key 总是落在同一段
+     */
+    int stripeOf(Object key) {
+        int hash = key.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    /**
+     * @return 是否已进入队列，队列已满或已关闭时返回 false
+     */
+    boolean execute(int stripe, Runnable task) {
+        try {
+            stripes[stripe].execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 各段排队中的任务总数
+     */
+    int queued() {
+        int queued = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            queued += stripe.getQueue().size();
+        }
+        return queued;
+    }
+
+    void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.lab.chche.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 写后（write-behind）缓冲：L2 的写入与删除先在内存中合并，由后台线程按批写入 Redis
+ * <p>
+ * 同一个 key 只保留版本最新的一次操作（删除以 tombstone 表示）；缓冲区中不同 key 的数量达到上限时
+ * {@link #offer} 返回 false，调用方改为同步写入，以此形成背压。
+ */
+final class WriteBehindBuffer {
+
+    private final ConcurrentHashMap<Object, CacheEntry> pending = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int batchSize;
+    // 写入 Redis 与清空互斥，保证同一个 key 的多次刷新按顺序到达
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    WriteBehindBuffer(int capacity, int batchSize) {
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 登记一次写入或删除
+     *
+     * @return 缓冲区已满且 key 不在缓冲区中时返回 false
+     */
+    boolean offer(Object key, CacheEntry entry) {
+        if (pending.size() >= capacity && !pending.containsKey(key)) {
+            return false;
+        }
+        merge(key, entry);
+        return true;
+    }
+
+    private void merge(Object key, CacheEntry entry) {
+        pending.merge(key, entry, (current, update) -> update.isNewerThan(current) ? update : current);
+    }
+
+    /**
+     * 尚未写入 L2 的最新操作，没有时返回 null
+     */
+    CacheEntry pending(Object key) {
+        return pending.get(key);
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * 待写条目达到一批时返回 true，同一时刻只返回一次，直到下一次刷新开始
+     */
+    boolean shouldFlushNow() {
+        return pending.size() >= batchSize && flushRequested.compareAndSet(false, true);
+    }
+
+    /**
+     * 取出当前所有待写条目，按批交给 writer；writer 抛出异常时该批中没有被更新版本覆盖的条目放回缓冲区
+     *
+     * @return 写入的条目数
+     */
+    int flush(Consumer<Map<Object, CacheEntry>> writer) {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            int flushed = 0;
+            Map<Object, CacheEntry> batch = new LinkedHashMap<>();
+            for (Map.Entry<Object, CacheEntry> entry : pending.entrySet()) {
+                // 刷新期间又被更新的 key 留给下一轮
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    batch.put(entry.getKey(), entry.getValue());
+                }
+                if (batch.size() >= batchSize) {
+                    flushed += write(batch, writer);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flushed += write(batch, writer);
+            }
+            return flushed;
+        }
+    }
+
+    private int write(Map<Object, CacheEntry> batch, Consumer<Map<Object, CacheEntry>> writer) {
+        try {
+            writer.accept(batch);
+            return batch.size();
+        } catch (RuntimeException e) {
+            batch.forEach(this::merge);
+            throw e;
+        }
+    }
+
+    /**
+     * 丢弃所有待写条目，等待进行中的刷新结束
+     */
+    void clear() {
+        synchronized (flushLock) {
+            pending.clear();
+        }
+    }
+}
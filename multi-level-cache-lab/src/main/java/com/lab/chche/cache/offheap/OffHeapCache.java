@@ -0,0 +1,80 @@
+package com.lab.chche.cache.offheap;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 以 {@link OffHeapStore} 为存储的 Spring Cache，作为多级缓存的堆外 L1
+ */
+public class OffHeapCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final OffHeapStore store;
+
+    public OffHeapCache(String name, OffHeapStore store) {
+        super(true);
+        this.name = name;
+        this.store = store;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public OffHeapStore getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return store.get(key);
+    }
+
+    /**
+     * 不加锁：并发未命中的线程各自加载，先写入的值生效，多级缓存的回源去重在 MultiLevelCache 中完成
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        ValueWrapper existing = putIfAbsent(key, value);
+        return existing != null ? (T) existing.get() : value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store.set(key, toStoreValue(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return toValueWrapper(store.putIfAbsent(key, toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.delete(key);
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        return store.stats();
+    }
+}
@@ -0,0 +1,88 @@
+package com.lab.chche.cache.offheap;
+
+import com.lab.chche.config.MultiLevelCacheProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 管理 l1-store 为 OFF_HEAP 的缓存，其他缓存返回 null 交由 Caffeine 处理
+ */
+public class OffHeapCacheManager implements CacheManager {
+
+    private final MultiLevelCacheProperties properties;
+    // 与 L2 使用相同的值编码
+    private final Function<MultiLevelCacheProperties.CacheSpec, RedisSerializer<Object>> serializerFactory;
+    private final ConcurrentMap<String, OffHeapCache> caches = new ConcurrentHashMap<>();
+
+    public OffHeapCacheManager(MultiLevelCacheProperties properties,
+                               Function<MultiLevelCacheProperties.CacheSpec, RedisSerializer<Object>> serializerFactory) {
+        this.properties = properties;
+        this.serializerFactory = serializerFactory;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        OffHeapCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        MultiLevelCacheProperties.CacheSpec spec = properties.getCacheSpec(name);
+        if (spec.getL1Store() != MultiLevelCacheProperties.L1Store.OFF_HEAP) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> create(n, spec));
+    }
+
+    /**
+     * 按新配置更新堆外缓存；配置不再是 OFF_HEAP 时移除并返回 null
+     * <p>
+     * 容量与块大小不变时沿用现有实例与数据，只更新过期时间与值编码；否则重建，新实例从空开始，
+     * 旧实例的 direct buffer 在不再被引用后由 GC 回收。
+     */
+    public Cache reconfigure(String name, MultiLevelCacheProperties.CacheSpec spec) {
+        if (spec.getL1Store() != MultiLevelCacheProperties.L1Store.OFF_HEAP) {
+            caches.remove(name);
+            return null;
+        }
+        OffHeapCache current = caches.get(name);
+        if (current != null && current.getNativeCache().hasLayout(capacityBytes(spec), blockSize(spec))) {
+            current.getNativeCache().reconfigure(spec.getL1Ttl().toNanos(), spec.getTtlJitter(),
+                    serializerFactory.apply(spec));
+            return current;
+        }
+        OffHeapCache cache = create(name, spec);
+        caches.put(name, cache);
+        return cache;
+    }
+
+    private OffHeapCache create(String name, MultiLevelCacheProperties.CacheSpec spec) {
+        OffHeapStore store = new OffHeapStore(
+                capacityBytes(spec),
+                blockSize(spec),
+                Runtime.getRuntime().availableProcessors() * 2,
+                spec.getL1Ttl().toNanos(),
+                spec.getTtlJitter(),
+                serializerFactory.apply(spec));
+        return new OffHeapCache(name, store);
+    }
+
+    private static long capacityBytes(MultiLevelCacheProperties.CacheSpec spec) {
+        return spec.getL1OffHeapCapacity().toBytes();
+    }
+
+    private static int blockSize(MultiLevelCacheProperties.CacheSpec spec) {
+        return (int) spec.getL1OffHeapBlockSize().toBytes();
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+}
@@ -0,0 +1,535 @@
+package com.lab.chche.cache.offheap;
+
+import com.lab.chche.cache.CacheEntry;
+import com.lab.chche.cache.CacheSpecSupport;
+import com.lab.chche.cache.FrequencySketch;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外存储的并发 Map，值序列化后写入 direct ByteBuffer，key 与索引留在堆内
+ * <p>
+ * 容量按分段划分，每段一个 direct buffer，切成固定大小的块；一个值占用若干个不要求连续的块，因此没有碎片问题。
+ * 段内用访问顺序的 LinkedHashMap 做 LRU，空间不足时淘汰最久未访问的条目；
+ * 新 key 需要挤掉旧条目时先用 {@link FrequencySketch} 比较两者的访问频率，频率不高于被淘汰者的新值不写入
+ * （W-TinyLFU 的准入规则），避免一次性扫描冲掉热点数据。
+ * <p>
+ * 每次读取都会反序列化出新对象。值为 {@link CacheEntry} 时版本、来源与 tombstone 标记另存在堆内索引中，
+ * 比较类操作（replace、remove(key, value)）与 {@link #putIfNewer}、{@link #header} 只看这部分，不反序列化；
+ * 其他值按反序列化后的 equals 判断。
+ */
+public class OffHeapStore extends AbstractMap<Object, Object> implements ConcurrentMap<Object, Object> {
+
+    private static final int MIN_BLOCKS_PER_SEGMENT = 64;
+
+    private final long requestedCapacity;
+    private final int blockSize;
+    private volatile RedisSerializer<Object> serializer;
+    private volatile long ttlNanos;
+    private volatile double ttlJitter;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param capacityBytes 堆外容量
+     * @param blockSize     分配块大小，值按块向上取整占用空间
+     * @param ttlNanos      写入后过期时间，小于等于 0 表示不过期
+     * @param ttlJitter     过期时间随机缩短的最大比例
+     */
+    public OffHeapStore(long capacityBytes, int blockSize, int concurrency, long ttlNanos, double ttlJitter,
+                        RedisSerializer<Object> serializer) {
+        this.requestedCapacity = capacityBytes;
+        this.blockSize = blockSize;
+        this.serializer = serializer;
+        this.ttlNanos = ttlNanos;
+        this.ttlJitter = ttlJitter;
+        long totalBlocks = Math.max(MIN_BLOCKS_PER_SEGMENT, capacityBytes / blockSize);
+        int segmentCount = Integer.highestOneBit(Math.max(1, concurrency));
+        while (segmentCount > 1 && totalBlocks / segmentCount < MIN_BLOCKS_PER_SEGMENT) {
+            segmentCount >>= 1;
+        }
+        long blocksPerSegment = Math.min(totalBlocks / segmentCount, Integer.MAX_VALUE / blockSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((int) blocksPerSegment, blockSize);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, totalBlocks));
+    }
+
+    @Override
+    public Object get(Object key) {
+        sketch.increment(key);
+        Segment segment = segmentFor(key);
+        byte[] bytes;
+        synchronized (segment) {
+            Slot slot = liveSlot(segment, key);
+            if (slot == null) {
+                misses.increment();
+                return null;
+            }
+            bytes = segment.read(slot);
+        }
+        hits.increment();
+        return serializer.deserialize(bytes);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return liveSlot(segment, key) != null;
+        }
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        byte[] bytes = serialize(value);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            Object previous = old != null ? serializer.deserialize(segment.read(old)) : null;
+            write(segment, key, bytes, headerOf(value), old);
+            return previous;
+        }
+    }
+
+    /**
+     * 与 {@link #put} 相同，但不反序列化旧值
+     *
+     * @return 是否写入，未通过准入或超过分段容量时为 false
+     */
+    public boolean set(Object key, Object value) {
+        byte[] bytes = serialize(value);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return write(segment, key, bytes, headerOf(value), liveSlot(segment, key));
+        }
+    }
+
+    /**
+     * 仅当 entry 比现有条目更新（{@link CacheEntry#isNewerThan}）时写入，只比较索引中的版本信息
+     *
+     * @param onlyIfPresent 为 true 时 key 不存在则不写入
+     * @return 是否写入
+     */
+    public boolean putIfNewer(Object key, CacheEntry entry, boolean onlyIfPresent) {
+        byte[] bytes = serialize(entry);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            if (old == null ? onlyIfPresent : old.header == null || !entry.isNewerThan(old.header)) {
+                return false;
+            }
+            return write(segment, key, bytes, headerOf(entry), old);
+        }
+    }
+
+    /**
+     * 现有条目的版本、来源与 tombstone 标记（不含值），key 不存在或值不是 {@link CacheEntry} 时为 null
+     */
+    public CacheEntry header(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot slot = liveSlot(segment, key);
+            return slot != null ? slot.header : null;
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(Object key, Object value) {
+        byte[] bytes = serialize(value);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            if (old != null) {
+                return serializer.deserialize(segment.read(old));
+            }
+            write(segment, key, bytes, headerOf(value), null);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean replace(Object key, Object oldValue, Object newValue) {
+        byte[] bytes = serialize(newValue);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            if (old == null || !matches(segment, old, oldValue)) {
+                return false;
+            }
+            return write(segment, key, bytes, headerOf(newValue), old);
+        }
+    }
+
+    @Override
+    public Object replace(Object key, Object value) {
+        byte[] bytes = serialize(value);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            if (old == null) {
+                return null;
+            }
+            Object previous = serializer.deserialize(segment.read(old));
+            write(segment, key, bytes, headerOf(value), old);
+            return previous;
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            if (old == null) {
+                return null;
+            }
+            Object previous = serializer.deserialize(segment.read(old));
+            segment.remove(key);
+            return previous;
+        }
+    }
+
+    /**
+     * 与 {@link #remove(Object)} 相同，但不反序列化旧值
+     *
+     * @return 是否删除了条目
+     */
+    public boolean delete(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (liveSlot(segment, key) == null) {
+                return false;
+            }
+            segment.remove(key);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Slot old = liveSlot(segment, key);
+            if (old == null || !matches(segment, old, value)) {
+                return false;
+            }
+            segment.remove(key);
+            return true;
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.index.size();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * 条目快照，遍历期间的并发修改不会反映到结果中
+     */
+    @Override
+    public Set<Entry<Object, Object>> entrySet() {
+        Map<Object, Object> snapshot = new LinkedHashMap<>();
+        for (Segment segment : segments) {
+            List<Object> keys;
+            synchronized (segment) {
+                keys = new ArrayList<>(segment.index.keySet());
+            }
+            for (Object key : keys) {
+                Object value = peek(segment, key);
+                if (value != null) {
+                    snapshot.put(key, value);
+                }
+            }
+        }
+        return snapshot.entrySet();
+    }
+
+    private Object peek(Segment segment, Object key) {
+        byte[] bytes;
+        synchronized (segment) {
+            Slot slot = segment.index.get(key);
+            if (slot == null || isExpired(slot, System.nanoTime())) {
+                return null;
+            }
+            bytes = segment.read(slot);
+        }
+        return serializer.deserialize(bytes);
+    }
+
+    /**
+     * 写入条目；旧条目先释放，空间不足时按 LRU 淘汰，新 key 还需通过频率准入
+     *
+     * @return 是否写入；为 false 时 key 不再有值，旧值也已删除
+     */
+    private boolean write(Segment segment, Object key, byte[] bytes, CacheEntry header, Slot old) {
+        if (old != null) {
+            segment.remove(key);
+        }
+        int blocksNeeded = Math.max(1, (bytes.length + blockSize - 1) / blockSize);
+        if (blocksNeeded > segment.blockCount) {
+            rejections.increment();
+            return false;
+        }
+        if (!makeRoom(segment, key, blocksNeeded, old == null)) {
+            // 未通过准入：新 key 直接丢弃，更新则保持删除状态，不能留下旧值
+            rejections.increment();
+            return false;
+        }
+        long ttlNanos = this.ttlNanos;
+        long expiresAt = ttlNanos > 0 ? System.nanoTime() + CacheSpecSupport.jitter(ttlNanos, ttlJitter) : Long.MAX_VALUE;
+        segment.index.put(key, segment.write(bytes, blocksNeeded, header, expiresAt));
+        return true;
+    }
+
+    /**
+     * 条目与 expected 是否相等：两者都是 {@link CacheEntry} 时只比较索引中的版本信息，否则反序列化后比较
+     */
+    private boolean matches(Segment segment, Slot slot, Object expected) {
+        if (slot.header != null && expected instanceof CacheEntry) {
+            return slot.header.equals(expected);
+        }
+        return Objects.equals(serializer.deserialize(segment.read(slot)), expected);
+    }
+
+    private static CacheEntry headerOf(Object value) {
+        if (!(value instanceof CacheEntry)) {
+            return null;
+        }
+        CacheEntry entry = (CacheEntry) value;
+        return new CacheEntry(null, entry.getVersion(), entry.getOrigin(), entry.isTombstone());
+    }
+
+    private boolean makeRoom(Segment segment, Object key, int blocksNeeded, boolean admission) {
+        if (segment.freeTop >= blocksNeeded) {
+            return true;
+        }
+        int candidateFrequency = admission ? sketch.frequency(key) : Integer.MAX_VALUE;
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Object, Slot>> it = segment.index.entrySet().iterator();
+        while (segment.freeTop < blocksNeeded && it.hasNext()) {
+            Map.Entry<Object, Slot> eldest = it.next();
+            Slot slot = eldest.getValue();
+            if (isExpired(slot, now)) {
+                expirations.increment();
+            } else if (candidateFrequency <= sketch.frequency(eldest.getKey())) {
+                return false;
+            } else {
+                evictions.increment();
+            }
+            it.remove();
+            segment.release(slot);
+        }
+        return segment.freeTop >= blocksNeeded;
+    }
+
+    private Slot liveSlot(Segment segment, Object key) {
+        Slot slot = segment.index.get(key);
+        if (slot != null && isExpired(slot, System.nanoTime())) {
+            segment.remove(key);
+            expirations.increment();
+            return null;
+        }
+        return slot;
+    }
+
+    private static boolean isExpired(Slot slot, long now) {
+        return now - slot.expiresAt >= 0;
+    }
+
+    private byte[] serialize(Object value) {
+        byte[] bytes = serializer.serialize(value);
+        if (bytes == null) {
+            throw new IllegalArgumentException("Off-heap cache value serialized to null");
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    /**
+     * 热更新过期时间与值编码，已有条目保留；值编码自带格式标记，旧格式的条目仍可读取
+     */
+    public void reconfigure(long ttlNanos, double ttlJitter, RedisSerializer<Object> serializer) {
+        this.ttlNanos = ttlNanos;
+        this.ttlJitter = ttlJitter;
+        this.serializer = serializer;
+    }
+
+    /**
+     * 是否按给定的容量与块大小创建，两者不变时可以沿用现有存储
+     */
+    public boolean hasLayout(long capacityBytes, int blockSize) {
+        return requestedCapacity == capacityBytes && this.blockSize == blockSize;
+    }
+
+    public long capacityBytes() {
+        long capacity = 0;
+        for (Segment segment : segments) {
+            capacity += (long) segment.blockCount * blockSize;
+        }
+        return capacity;
+    }
+
+    public long usedBytes() {
+        long used = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                used += (long) (segment.blockCount - segment.freeTop) * blockSize;
+            }
+        }
+        return used;
+    }
+
+    public long evictionCount() {
+        return evictions.sum() + expirations.sum();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total > 0 ? (double) hitCount / total : 0.0);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("entries", size());
+        stats.put("usedBytes", usedBytes());
+        stats.put("capacityBytes", capacityBytes());
+        return stats;
+    }
+
+    /**
+     * 堆外中的一个条目：占用的块号、实际长度、过期时间，以及值为 {@link CacheEntry} 时不含值的版本信息
+     */
+    private static final class Slot {
+        private final int[] blocks;
+        private final int length;
+        private final CacheEntry header;
+        private final long expiresAt;
+
+        Slot(int[] blocks, int length, CacheEntry header, long expiresAt) {
+            this.blocks = blocks;
+            this.length = length;
+            this.header = header;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 一个分段：一块 direct buffer、空闲块栈与 LRU 索引，所有操作在分段锁内进行
+     */
+    private static final class Segment {
+        private final ByteBuffer buffer;
+        private final int blockSize;
+        private final int blockCount;
+        private final int[] freeBlocks;
+        private int freeTop;
+        private final LinkedHashMap<Object, Slot> index = new LinkedHashMap<>(64, 0.75f, true);
+
+        Segment(int blockCount, int blockSize) {
+            this.blockSize = blockSize;
+            this.blockCount = blockCount;
+            this.buffer = ByteBuffer.allocateDirect(blockCount * blockSize);
+            this.freeBlocks = new int[blockCount];
+            resetFreeBlocks();
+        }
+
+        private void resetFreeBlocks() {
+            for (int i = 0; i < blockCount; i++) {
+                freeBlocks[i] = blockCount - 1 - i;
+            }
+            freeTop = blockCount;
+        }
+
+        Slot write(byte[] bytes, int blocksNeeded, CacheEntry header, long expiresAt) {
+            int[] blocks = new int[blocksNeeded];
+            for (int i = 0; i < blocksNeeded; i++) {
+                int block = freeBlocks[--freeTop];
+                blocks[i] = block;
+                int offset = i * blockSize;
+                int length = Math.min(blockSize, bytes.length - offset);
+                if (length > 0) {
+                    ByteBuffer target = buffer.duplicate();
+                    target.position(block * blockSize);
+                    target.put(bytes, offset, length);
+                }
+            }
+            return new Slot(blocks, bytes.length, header, expiresAt);
+        }
+
+        byte[] read(Slot slot) {
+            byte[] bytes = new byte[slot.length];
+            for (int i = 0; i < slot.blocks.length; i++) {
+                int offset = i * blockSize;
+                int length = Math.min(blockSize, slot.length - offset);
+                if (length > 0) {
+                    ByteBuffer source = buffer.duplicate();
+                    source.position(slot.blocks[i] * blockSize);
+                    source.get(bytes, offset, length);
+                }
+            }
+            return bytes;
+        }
+
+        void remove(Object key) {
+            Slot slot = index.remove(key);
+            if (slot != null) {
+                release(slot);
+            }
+        }
+
+        void release(Slot slot) {
+            for (int block : slot.blocks) {
+                freeBlocks[freeTop++] = block;
+            }
+        }
+
+        void clear() {
+            index.clear();
+            resetFreeBlocks();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.lab.chche.cache.serializer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.lab.chche.cache.CacheEntry;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * L2 缓存值序列化器，按缓存配置选择编码格式，超过阈值的值用 LZ4 压缩
+ * <p>
+ * 格式：header(1) | [原始长度(4)] | payload。header 高 4 位固定为 0x1，低 3 位为格式 ID，0x08 表示已压缩。
+ * 解码按 header 中的格式 ID 分派，与当前配置无关，切换 codec 后旧数据仍可读取；
+ * 没有 header 的旧数据按 JDK（首字节 0xAC）或 JSON 解析。
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    private static final int HEADER_MARK = 0x10;
+    private static final int HEADER_MARK_MASK = 0xF0;
+    private static final int COMPRESSED_FLAG = 0x08;
+    private static final int FORMAT_MASK = 0x07;
+    private static final byte JDK_STREAM_MAGIC = (byte) 0xAC;
+    // LZ4 的压缩比上限约为 255:1，原始长度超过压缩数据的 255 倍说明长度字段被篡改或损坏
+    private static final int MAX_COMPRESSION_RATIO = 255;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs;
+    private final MultiLevelCacheProperties.CacheCodec format;
+    private final ValueCodec codec;
+    private final int compressThreshold;
+
+    /**
+     * @param compressThreshold 编码后超过该字节数时压缩，小于等于 0 表示不压缩
+     */
+    public CacheValueSerializer(Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs,
+                                MultiLevelCacheProperties.CacheCodec format, int compressThreshold) {
+        this.codecs = codecs;
+        this.format = format;
+        this.codec = codecs.get(format);
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * 创建所有格式的编解码实例，同一进程内的各缓存共享
+     */
+    public static Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> createCodecs(List<String> kryoRegistrations) {
+        Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> codecs =
+                new EnumMap<>(MultiLevelCacheProperties.CacheCodec.class);
+        codecs.put(MultiLevelCacheProperties.CacheCodec.JSON,
+                new RedisSerializerValueCodec(new GenericJackson2JsonRedisSerializer()));
+        codecs.put(MultiLevelCacheProperties.CacheCodec.SMILE, new JacksonValueCodec(
+                new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)));
+        codecs.put(MultiLevelCacheProperties.CacheCodec.CBOR, new JacksonValueCodec(new CBORFactory()));
+        codecs.put(MultiLevelCacheProperties.CacheCodec.KRYO, new KryoValueCodec(kryoRegistrations));
+        codecs.put(MultiLevelCacheProperties.CacheCodec.JDK,
+                new RedisSerializerValueCodec(new JdkSerializationRedisSerializer()));
+        return codecs;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] payload = codec.encode(value);
+        recordSize(value, payload.length);
+        int header = HEADER_MARK | format.getId();
+        if (compressThreshold <= 0 || payload.length <= compressThreshold) {
+            byte[] bytes = new byte[payload.length + 1];
+            bytes[0] = (byte) header;
+            System.arraycopy(payload, 0, bytes, 1, payload.length);
+            return bytes;
+        }
+        int maxLength = COMPRESSOR.maxCompressedLength(payload.length);
+        byte[] bytes = new byte[5 + maxLength];
+        bytes[0] = (byte) (header | COMPRESSED_FLAG);
+        ByteBuffer.wrap(bytes, 1, 4).putInt(payload.length);
+        int compressedLength = COMPRESSOR.compress(payload, 0, payload.length, bytes, 5, maxLength);
+        if (compressedLength >= payload.length) {
+            // 压缩无收益（已压缩过的数据等），退回原始格式
+            byte[] plain = new byte[payload.length + 1];
+            plain[0] = (byte) header;
+            System.arraycopy(payload, 0, plain, 1, payload.length);
+            return plain;
+        }
+        byte[] trimmed = new byte[5 + compressedLength];
+        System.arraycopy(bytes, 0, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int header = bytes[0] & 0xFF;
+        if ((header & HEADER_MARK_MASK) != HEADER_MARK) {
+            return decodeLegacy(bytes);
+        }
+        MultiLevelCacheProperties.CacheCodec source = MultiLevelCacheProperties.CacheCodec.fromId(header & FORMAT_MASK);
+        ValueCodec sourceCodec = source != null ? codecs.get(source) : null;
+        if (sourceCodec == null) {
+            throw new SerializationException("Unknown cache value format: " + (header & FORMAT_MASK));
+        }
+        if ((header & COMPRESSED_FLAG) == 0) {
+            return recordSize(sourceCodec.decode(bytes, 1, bytes.length - 1), bytes.length - 1);
+        }
+        if (bytes.length < 5) {
+            throw new SerializationException("Truncated compressed cache value");
+        }
+        int originalLength = ByteBuffer.wrap(bytes, 1, 4).getInt();
+        if (originalLength < 0 || originalLength > (long) (bytes.length - 5) * MAX_COMPRESSION_RATIO) {
+            throw new SerializationException("Invalid original length of compressed cache value: " + originalLength);
+        }
+        byte[] payload = new byte[originalLength];
+        try {
+            DECOMPRESSOR.decompress(bytes, 5, payload, 0, originalLength);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decompress cache value", e);
+        }
+        return recordSize(sourceCodec.decode(payload, 0, originalLength), originalLength);
+    }
+
+    /**
+     * 在 CacheEntry 上记录未压缩的编码大小，写入 L1 时作为权重，避免再次序列化
+     */
+    private static Object recordSize(Object value, int payloadLength) {
+        if (value instanceof CacheEntry) {
+            ((CacheEntry) value).recordSerializedSize(payloadLength);
+        }
+        return value;
+    }
+
+    private Object decodeLegacy(byte[] bytes) {
+        MultiLevelCacheProperties.CacheCodec legacy = bytes[0] == JDK_STREAM_MAGIC
+                ? MultiLevelCacheProperties.CacheCodec.JDK : MultiLevelCacheProperties.CacheCodec.JSON;
+        return recordSize(codecs.get(legacy).decode(bytes, 0, bytes.length), bytes.length);
+    }
+}
@@ -0,0 +1,72 @@
+package com.lab.chche.cache.serializer;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * 基于 Jackson 二进制格式（Smile/CBOR）的编解码，保留类型信息以还原多态值
+ * <p>
+ * Smile 会对重复出现的属性名和类名做back-reference，列表值的类型元数据只出现一次。
+ * <p>
+ * 值来自 Redis，类型信息不可信：只还原 {@code com.lab.chche} 下的类、java.util 集合、java.time 与基本包装类型，
+ * 其他类型 ID 按格式错误拒绝。
+ */
+public class JacksonValueCodec implements ValueCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JacksonValueCodec(JsonFactory jsonFactory) {
+        this.objectMapper = new ObjectMapper(jsonFactory);
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.objectMapper.activateDefaultTyping(
+                typeValidator(),
+                ObjectMapper.DefaultTyping.EVERYTHING,
+                JsonTypeInfo.As.PROPERTY);
+    }
+
+    private static PolymorphicTypeValidator typeValidator() {
+        return BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.lab.chche.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType(String.class)
+                .allowIfSubType(Long.class)
+                .allowIfSubType(Integer.class)
+                .allowIfSubType(Short.class)
+                .allowIfSubType(Byte.class)
+                .allowIfSubType(Double.class)
+                .allowIfSubType(Float.class)
+                .allowIfSubType(Boolean.class)
+                .allowIfSubType(Character.class)
+                .allowIfSubType(BigDecimal.class)
+                .allowIfSubType(BigInteger.class)
+                .build();
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        try {
+            return objectMapper.readValue(bytes, offset, length, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read value: " + e.getMessage(), e);
+        }
+    }
+}
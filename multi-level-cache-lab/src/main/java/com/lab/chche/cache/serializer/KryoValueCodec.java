@@ -0,0 +1,124 @@
+package com.lab.chche.cache.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import com.lab.chche.cache.CacheEntry;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Kryo 编解码，注册过的类只写入一个整数 ID 而不是类名
+ * <p>
+ * 注册 ID 按配置顺序分配，所有节点的 kryo-registrations 必须保持相同顺序。
+ * 只接受注册过的类：值来自 Redis，按类名还原任意类会带来反序列化风险，未注册的类在写入与读取时都会失败。
+ * 常用的 JDK 集合、时间与数值类型已内置注册，业务类需配置在 kryo-registrations 中。
+ */
+public class KryoValueCodec implements ValueCodec {
+
+    private static final int FIRST_REGISTRATION_ID = 100;
+    private static final int FIRST_CUSTOM_REGISTRATION_ID = 120;
+
+    private final List<Class<?>> registrations;
+    private final Pool<Kryo> kryoPool;
+
+    public KryoValueCodec(List<String> registeredClassNames) {
+        this.registrations = resolve(registeredClassNames);
+        this.kryoPool = new Pool<Kryo>(true, false, 32) {
+            @Override
+            protected Kryo create() {
+                return createKryo();
+            }
+        };
+    }
+
+    private static List<Class<?>> resolve(List<String> classNames) {
+        if (classNames == null || classNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Class<?>> classes = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                classes.add(ClassUtils.forName(className, ClassUtils.getDefaultClassLoader()));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Kryo registration class not found: " + className, e);
+            }
+        }
+        return classes;
+    }
+
+    private Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(true);
+        kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        int id = FIRST_REGISTRATION_ID;
+        kryo.register(CacheEntry.class, id++);
+        kryo.register(ArrayList.class, id++);
+        kryo.register(HashMap.class, id++);
+        kryo.register(LinkedHashMap.class, id++);
+        // 以下只能在末尾追加，已有 ID 不能变
+        kryo.register(HashSet.class, id++);
+        kryo.register(LinkedHashSet.class, id++);
+        kryo.register(TreeMap.class, id++);
+        kryo.register(Collections.emptyList().getClass(), id++);
+        kryo.register(Collections.emptyMap().getClass(), id++);
+        kryo.register(Collections.emptySet().getClass(), id++);
+        kryo.register(Collections.singletonList(null).getClass(), id++);
+        kryo.register(Arrays.asList().getClass(), id++);
+        kryo.register(Date.class, id++);
+        kryo.register(BigDecimal.class, id++);
+        kryo.register(BigInteger.class, id++);
+        kryo.register(Instant.class, id++);
+        kryo.register(LocalDate.class, id++);
+        kryo.register(LocalDateTime.class, id);
+        id = FIRST_CUSTOM_REGISTRATION_ID;
+        for (Class<?> type : registrations) {
+            kryo.register(type, id++);
+        }
+        return kryo;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        Kryo kryo = kryoPool.obtain();
+        try (Output output = new Output(256, -1)) {
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not write value: " + e.getMessage(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        Kryo kryo = kryoPool.obtain();
+        try (Input input = new Input(bytes, offset, length)) {
+            return kryo.readClassAndObject(input);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not read value: " + e.getMessage(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+}
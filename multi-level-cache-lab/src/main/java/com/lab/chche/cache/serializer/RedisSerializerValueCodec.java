@@ -0,0 +1,29 @@
+package com.lab.chche.cache.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+
+/**
+ * 适配 Spring Data Redis 自带的序列化器（JSON、JDK），兼容改造前写入的数据
+ */
+public class RedisSerializerValueCodec implements ValueCodec {
+
+    private final RedisSerializer<Object> serializer;
+
+    public RedisSerializerValueCodec(RedisSerializer<Object> serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        byte[] payload = offset == 0 && length == bytes.length
+                ? bytes : Arrays.copyOfRange(bytes, offset, offset + length);
+        return serializer.deserialize(payload);
+    }
+}
@@ -0,0 +1,11 @@
+package com.lab.chche.cache.serializer;
+
+/**
+ * 缓存值的编解码实现，由 {@link CacheValueSerializer} 负责加帧头和压缩
+ */
+public interface ValueCodec {
+
+    byte[] encode(Object value);
+
+    Object decode(byte[] bytes, int offset, int length);
+}
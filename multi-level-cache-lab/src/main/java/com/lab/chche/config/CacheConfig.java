@@ -1,8 +1,19 @@
 package com.lab.chche.config;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lab.chche.cache.CacheSpecSupport;
+import com.lab.chche.cache.CacheTagResolver;
+import com.lab.chche.cache.CacheWarmer;
+import com.lab.chche.cache.CacheWarmupSource;
+import com.lab.chche.cache.ClientTrackingInvalidator;
 import com.lab.chche.cache.MultiLevelCacheManager;
-import org.springframework.beans.factory.annotation.Qualifier;
+import com.lab.chche.cache.ReconfigurableRedisCacheManager;
+import com.lab.chche.cache.offheap.OffHeapCacheManager;
+import com.lab.chche.cache.serializer.CacheValueSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -10,65 +21,92 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
-
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(MultiLevelCacheProperties.class)
 public class CacheConfig {
 
     // L1 Cache (Caffeine) configuration
     @Bean
     @Primary
-    public CaffeineCacheManager caffeineCacheManager() {
+    public CaffeineCacheManager caffeineCacheManager(MultiLevelCacheProperties multiLevelCacheProperties,
+                                                     ReconfigurableRedisCacheManager redisCacheManager) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .initialCapacity(100)
-                .maximumSize(1000)
-                .expireAfterWrite(Duration.ofMinutes(1))
-                .recordStats());
+        // 未单独配置的缓存使用默认规格；按编码后大小加权时与 L2 使用相同的编码
+        cacheManager.setCaffeine(CacheSpecSupport.caffeine(multiLevelCacheProperties.getDefaultSpec(),
+                redisCacheManager.getCodecs()));
+        // multi-level-cache.caches.<name> 中配置的缓存按各自规格创建
+        multiLevelCacheProperties.getCaches().forEach((name, spec) -> cacheManager.registerCustomCache(name,
+                CacheSpecSupport.caffeine(spec, redisCacheManager.getCodecs()).build()));
         return cacheManager;
     }
 
     // L2 Cache (Redis) configuration
     @Bean
-    public RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(2))
+    public ReconfigurableRedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                                             MultiLevelCacheProperties multiLevelCacheProperties) {
+        // TTL 与值序列化方式由每个缓存的配置决定
+        RedisCacheConfiguration baseCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
-
-        // You can define specific cache configurations here
-//        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
-//        cacheConfigurations.put("userCache", defaultCacheConfig.entryTtl(Duration.ofHours(1)));
-//        cacheConfigurations.put("productCache", defaultCacheConfig.entryTtl(Duration.ofMinutes(15)));
+                        .fromSerializer(new StringRedisSerializer()));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(defaultCacheConfig)
-//                .withInitialCacheConfigurations(cacheConfigurations)
-                .build();
+        return new ReconfigurableRedisCacheManager(
+                redisConnectionFactory,
+                RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory),
+                baseCacheConfig,
+                multiLevelCacheProperties,
+                CacheValueSerializer.createCodecs(multiLevelCacheProperties.getCodec().getKryoRegistrations()));
     }
 
     @Bean
     public MultiLevelCacheManager multiLevelCacheManager(
             CacheManager caffeineCacheManager,
-            @Qualifier("redisCacheManager") CacheManager redisCacheManager,
-            RedisTemplate<String, Object> redisTemplate) {
+            ReconfigurableRedisCacheManager redisCacheManager,
+            RedisTemplate<String, Object> redisTemplate,
+            MultiLevelCacheProperties multiLevelCacheProperties,
+            MeterRegistry meterRegistry,
+            ObjectProvider<CacheWarmupSource> warmupSources,
+            ObjectProvider<CacheTagResolver> tagResolvers) {
 
-        return new MultiLevelCacheManager(
+        MultiLevelCacheManager cacheManager = new MultiLevelCacheManager(
                 caffeineCacheManager,
                 redisCacheManager,
-                redisTemplate
+                // 堆外 L1 与 L2 使用相同的值编码
+                new OffHeapCacheManager(multiLevelCacheProperties, redisCacheManager::valueSerializer),
+                redisTemplate,
+                multiLevelCacheProperties,
+                meterRegistry
         );
+        cacheManager.setWarmupSources(warmupSources);
+        cacheManager.setTagResolvers(tagResolvers);
+        return cacheManager;
+    }
+
+    // 开启后 caches 中配置的缓存由 Redis 推送失效，写入不再发布 pub/sub 消息
+    @Bean
+    @ConditionalOnProperty(prefix = "multi-level-cache.invalidation", name = "transport", havingValue = "client_tracking")
+    public ClientTrackingInvalidator clientTrackingInvalidator(LettuceConnectionFactory lettuceConnectionFactory,
+                                                               MultiLevelCacheManager multiLevelCacheManager) {
+        return new ClientTrackingInvalidator(lettuceConnectionFactory, multiLevelCacheManager);
+    }
+
+    @Bean
+    public CacheWarmer cacheWarmer(MultiLevelCacheManager multiLevelCacheManager,
+                                   RedisConnectionFactory redisConnectionFactory,
+                                   MultiLevelCacheProperties multiLevelCacheProperties) {
+        return new CacheWarmer(multiLevelCacheManager, redisConnectionFactory, multiLevelCacheProperties);
+    }
+
+    // ApplicationRunner 执行完之前应用不会进入 ACCEPTING_TRAFFIC，预热完成后才开始接收流量
+    @Bean
+    public ApplicationRunner cacheWarmupRunner(CacheWarmer cacheWarmer) {
+        return args -> cacheWarmer.warmup();
     }
 }
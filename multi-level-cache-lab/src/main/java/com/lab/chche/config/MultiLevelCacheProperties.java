@@ -0,0 +1,958 @@
+package com.lab.chche.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 多级缓存配置属性
+ */
+@ConfigurationProperties(prefix = "multi-level-cache")
+public class MultiLevelCacheProperties {
+
+    /**
+     * 当前节点标识，用于丢弃本节点发出的同步消息；默认每次启动随机生成
+     */
+    private String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 跨节点加载租约配置
+     */
+    private final LoadLease loadLease = new LoadLease();
+
+    /**
+     * L1 失效消息批量发布配置
+     */
+    private final Invalidation invalidation = new Invalidation();
+
+    /**
+     * 后台提前刷新线程池配置
+     */
+    private final Refresh refresh = new Refresh();
+
+    /**
+     * 其他节点同步消息的处理线程配置
+     */
+    private final Listener listener = new Listener();
+
+    /**
+     * L2 值编码的全局配置
+     */
+    private final Codec codec = new Codec();
+
+    /**
+     * 启动预热配置
+     */
+    private final Warmup warmup = new Warmup();
+
+    /**
+     * 写后模式的全局配置
+     */
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * 按缓存名称的个性化配置，未配置的缓存使用默认值
+     */
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    private final CacheSpec defaultSpec = new CacheSpec();
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public LoadLease getLoadLease() {
+        return loadLease;
+    }
+
+    public Invalidation getInvalidation() {
+        return invalidation;
+    }
+
+    public Refresh getRefresh() {
+        return refresh;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public Map<String, CacheSpec> getCaches() {
+        return caches;
+    }
+
+    public void setCaches(Map<String, CacheSpec> caches) {
+        this.caches = caches;
+    }
+
+    /**
+     * 获取指定缓存的配置，未配置时返回默认配置
+     */
+    public CacheSpec getCacheSpec(String cacheName) {
+        return caches.getOrDefault(cacheName, defaultSpec);
+    }
+
+    /**
+     * 未单独配置的缓存（包括运行时动态出现的缓存名称）使用的配置
+     */
+    public CacheSpec getDefaultSpec() {
+        return defaultSpec;
+    }
+
+    /**
+     * 跨节点 L1 同步方式
+     */
+    public enum SyncMode {
+        /**
+         * 广播完整的新值，其他节点直接更新 L1
+         */
+        UPDATE,
+        /**
+         * 只广播失效的 key，其他节点下次访问时再从 L2 拉取
+         */
+        INVALIDATE
+    }
+
+    /**
+     * L1 失效的传播方式
+     */
+    public enum InvalidationTransport {
+        /**
+         * 写入方通过 cache:update / cache:evict 频道广播
+         */
+        PUB_SUB,
+        /**
+         * Redis 6 CLIENT TRACKING 广播模式：由 Redis 在 key 被修改时推送失效，写入方不再发布消息；
+         * 只对启动时 caches 中配置的缓存生效，其余缓存仍走 pub/sub，所有节点需使用相同的方式
+         */
+        CLIENT_TRACKING
+    }
+
+    /**
+     * 启动时 L1 的预热方式
+     */
+    public enum WarmupMode {
+        /**
+         * 不预热
+         */
+        NONE,
+        /**
+         * 预热上次停机时保存的热点 key 以及 {@link com.lab.chche.cache.CacheWarmupSource} 提供的 key
+         */
+        HOT_KEYS,
+        /**
+         * 在 HOT_KEYS 的基础上用 SCAN 遍历该缓存在 Redis 中的 key，直到达到 warmup-max-keys
+         */
+        SCAN
+    }
+
+    /**
+     * L1 的存储位置
+     */
+    public enum L1Store {
+        /**
+         * Caffeine，值以对象形式保存在堆内
+         */
+        HEAP,
+        /**
+         * 堆外 direct buffer，值以 L2 相同的编码保存，读取时反序列化；适合体积大的值
+         */
+        OFF_HEAP
+    }
+
+    /**
+     * L1 容量按权重计算时的权重函数
+     */
+    public enum L1Weigher {
+        /**
+         * 每个条目权重为 1，等价于按条目数限制
+         */
+        ENTRY,
+        /**
+         * 集合/Map 值按元素个数计权重，其余值为 1
+         */
+        COLLECTION_SIZE,
+        /**
+         * 按对象图估算的堆内字节数，遍历字段计算，不做序列化
+         */
+        ESTIMATED_SIZE,
+        /**
+         * 按 L2 编码（不压缩）后的字节数，每次写入 L1 多一次编码
+         */
+        SERIALIZED_SIZE
+    }
+
+    /**
+     * L2 值的序列化方式，ID 写入每个值的首字节，已分配的 ID 不能修改
+     */
+    public enum CacheCodec {
+        /**
+         * 带类型信息的 JSON（GenericJackson2JsonRedisSerializer）
+         */
+        JSON(1),
+        /**
+         * Jackson Smile 二进制 JSON，重复的属性名只写一次
+         */
+        SMILE(2),
+        /**
+         * Jackson CBOR 二进制 JSON
+         */
+        CBOR(3),
+        /**
+         * Kryo，体积最小、编解码最快；注册过的类只写整数 ID
+         */
+        KRYO(4),
+        /**
+         * JDK 序列化，要求缓存值实现 Serializable
+         */
+        JDK(5);
+
+        private final int id;
+
+        CacheCodec(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public static CacheCodec fromId(int id) {
+            for (CacheCodec codec : values()) {
+                if (codec.id == id) {
+                    return codec;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 单个缓存的配置
+     */
+    public static class CacheSpec {
+        /**
+         * 是否启用 L1，关闭后该缓存只读写 Redis
+         */
+        private boolean l1Enabled = true;
+
+        /**
+         * L1 存储位置，OFF_HEAP 时 l1-max-size、l1-max-weight、l1-expire-after-access 与热点延长不生效
+         */
+        private L1Store l1Store = L1Store.HEAP;
+
+        /**
+         * 堆外 L1 的容量
+         */
+        private DataSize l1OffHeapCapacity = DataSize.ofMegabytes(64);
+
+        /**
+         * 堆外 L1 的分配块大小，值按块向上取整占用空间
+         */
+        private DataSize l1OffHeapBlockSize = DataSize.ofBytes(256);
+
+        /**
+         * L1 最大条目数，l1-max-weight 大于 0 或配置了 l1-max-bytes 时不生效
+         */
+        private long l1MaxSize = 1000;
+
+        /**
+         * L1 最大总权重，大于 0 时按 l1-weigher 计算的权重限制容量
+         */
+        private long l1MaxWeight = 0;
+
+        /**
+         * 堆内 L1 的字节预算，配置后按条目的估算字节数限制容量，优先于 l1-max-weight；
+         * l1-weigher 为 serialized_size 时按编码后的大小计算，否则按对象图估算
+         */
+        private DataSize l1MaxBytes;
+
+        /**
+         * L1 权重函数
+         */
+        private L1Weigher l1Weigher = L1Weigher.ENTRY;
+
+        /**
+         * L1 写入后过期时间
+         */
+        private Duration l1Ttl = Duration.ofMinutes(1);
+
+        /**
+         * L1 访问后过期时间，不配置则不按访问过期
+         */
+        private Duration l1ExpireAfterAccess;
+
+        /**
+         * L2 写入后过期时间
+         */
+        private Duration l2Ttl = Duration.ofMinutes(2);
+
+        /**
+         * L2 值的序列化方式
+         */
+        private CacheCodec codec = CacheCodec.JSON;
+
+        /**
+         * 编码后超过该大小的值用 LZ4 压缩后写入 L2，不配置则不压缩
+         */
+        private DataSize compressThreshold;
+
+        /**
+         * 写入后其他节点 L1 的同步方式；值较大或读取分散的缓存建议使用 INVALIDATE
+         */
+        private SyncMode syncMode = SyncMode.UPDATE;
+
+        /**
+         * 提前刷新阈值，条目存活超过 L2 TTL 的该比例后，读取时返回旧值并在后台重新加载；0 表示关闭
+         */
+        private double refreshAheadRatio = 0;
+
+        /**
+         * 提前刷新的绝对时长，配置后优先于 refresh-ahead-ratio
+         */
+        private Duration refreshAfter;
+
+        /**
+         * TTL 随机缩短的最大比例，L1 与 L2 的每次写入都在 [ttl * (1 - jitter), ttl] 内取值，
+         * 避免同一批写入的条目同时过期；配置了 l1-expire-after-access 的缓存 L1 不抖动；0 表示不抖动
+         */
+        private double ttlJitter = 0;
+
+        /**
+         * 概率提前刷新（XFetch）的系数，越大越早刷新，通常取 1；读取时按最近的回源耗时与剩余存活时间
+         * 以递增的概率在后台重新加载，0 表示关闭
+         */
+        private double earlyRefreshBeta = 0;
+
+        /**
+         * 热点 key 在 L1 中的存活时间，配置后按采样频率识别 Top-K 热点并延长其 L1 过期时间；
+         * 依赖按写入过期，配置了 l1-expire-after-access 的缓存不生效
+         */
+        private Duration hotKeyTtl;
+
+        /**
+         * 每个缓存跟踪的热点 key 数量
+         */
+        private int hotKeyTopK = 16;
+
+        /**
+         * 热点统计的采样间隔，每 N 次读取记录一次
+         */
+        private int hotKeySampleRate = 8;
+
+        /**
+         * L2 命中后写入 L1 所需的命中次数：同一个 key 在 l1-admission-window 内第 N 次从 L2 读到时才写入 L1，
+         * 只读一次的 key 不会挤掉 L1 中的热点；小于等于 1 表示每次都写入。本节点写入、远程更新和预热不受影响
+         */
+        private int l1AdmissionHits = 0;
+
+        /**
+         * L1 准入计数的窗口，窗口结束后计数清零
+         */
+        private Duration l1AdmissionWindow = Duration.ofMinutes(1);
+
+        /**
+         * 准入计数的 Count-Min Sketch 按多少个不同 key 分配，不配置时取 l1-max-size，最多 65536
+         */
+        private Integer l1AdmissionSketchSize;
+
+        /**
+         * 空值（回源结果为 null）在两级缓存中的存活时间，不配置则空值不缓存；
+         * L1 不支持按条目过期（堆外或配置了 l1-expire-after-access）时空值只写入 L2
+         */
+        private Duration negativeTtl;
+
+        /**
+         * 是否用 {@link com.lab.chche.cache.CacheWarmupSource} 提供的 key 构建 Bloom 过滤器，
+         * 两级缓存都未命中且过滤器判断 key 不存在时直接返回 null，不再回源
+         */
+        private boolean bloomFilter = false;
+
+        /**
+         * Bloom 过滤器的期望误判率
+         */
+        private double bloomFilterFpp = 0.01;
+
+        /**
+         * 启动时的 L1 预热方式
+         */
+        private WarmupMode warmup = WarmupMode.NONE;
+
+        /**
+         * 单个缓存最多预热的 key 数量
+         */
+        private int warmupMaxKeys = 1000;
+
+        /**
+         * 写后模式：写入时只同步更新 L1，L2 写入与同步消息进入缓冲区，由后台线程合并后批量写入；
+         * 写入 L2 前节点宕机会丢失这部分写入，只适合可以重建的数据
+         */
+        private boolean writeBehind = false;
+
+        /**
+         * 写后缓冲区最多容纳的不同 key 数，满了之后的写入改为同步写入 L2
+         */
+        private int writeBehindCapacity = 10000;
+
+        /**
+         * 每个 pipeline 写入的条目数，待写条目达到该数量时立即刷新
+         */
+        private int writeBehindBatchSize = 256;
+
+        public boolean isL1Enabled() {
+            return l1Enabled;
+        }
+
+        public void setL1Enabled(boolean l1Enabled) {
+            this.l1Enabled = l1Enabled;
+        }
+
+        public L1Store getL1Store() {
+            return l1Store;
+        }
+
+        public void setL1Store(L1Store l1Store) {
+            this.l1Store = l1Store;
+        }
+
+        public DataSize getL1OffHeapCapacity() {
+            return l1OffHeapCapacity;
+        }
+
+        public void setL1OffHeapCapacity(DataSize l1OffHeapCapacity) {
+            this.l1OffHeapCapacity = l1OffHeapCapacity;
+        }
+
+        public DataSize getL1OffHeapBlockSize() {
+            return l1OffHeapBlockSize;
+        }
+
+        public void setL1OffHeapBlockSize(DataSize l1OffHeapBlockSize) {
+            this.l1OffHeapBlockSize = l1OffHeapBlockSize;
+        }
+
+        public long getL1MaxSize() {
+            return l1MaxSize;
+        }
+
+        public void setL1MaxSize(long l1MaxSize) {
+            this.l1MaxSize = l1MaxSize;
+        }
+
+        public long getL1MaxWeight() {
+            return l1MaxWeight;
+        }
+
+        public void setL1MaxWeight(long l1MaxWeight) {
+            this.l1MaxWeight = l1MaxWeight;
+        }
+
+        public DataSize getL1MaxBytes() {
+            return l1MaxBytes;
+        }
+
+        public void setL1MaxBytes(DataSize l1MaxBytes) {
+            this.l1MaxBytes = l1MaxBytes;
+        }
+
+        public L1Weigher getL1Weigher() {
+            return l1Weigher;
+        }
+
+        public void setL1Weigher(L1Weigher l1Weigher) {
+            this.l1Weigher = l1Weigher;
+        }
+
+        public Duration getL1Ttl() {
+            return l1Ttl;
+        }
+
+        public void setL1Ttl(Duration l1Ttl) {
+            this.l1Ttl = l1Ttl;
+        }
+
+        public Duration getL1ExpireAfterAccess() {
+            return l1ExpireAfterAccess;
+        }
+
+        public void setL1ExpireAfterAccess(Duration l1ExpireAfterAccess) {
+            this.l1ExpireAfterAccess = l1ExpireAfterAccess;
+        }
+
+        public Duration getL2Ttl() {
+            return l2Ttl;
+        }
+
+        public void setL2Ttl(Duration l2Ttl) {
+            this.l2Ttl = l2Ttl;
+        }
+
+        public CacheCodec getCodec() {
+            return codec;
+        }
+
+        public void setCodec(CacheCodec codec) {
+            this.codec = codec;
+        }
+
+        public DataSize getCompressThreshold() {
+            return compressThreshold;
+        }
+
+        public void setCompressThreshold(DataSize compressThreshold) {
+            this.compressThreshold = compressThreshold;
+        }
+
+        public SyncMode getSyncMode() {
+            return syncMode;
+        }
+
+        public void setSyncMode(SyncMode syncMode) {
+            this.syncMode = syncMode;
+        }
+
+        public double getRefreshAheadRatio() {
+            return refreshAheadRatio;
+        }
+
+        public void setRefreshAheadRatio(double refreshAheadRatio) {
+            this.refreshAheadRatio = refreshAheadRatio;
+        }
+
+        public Duration getRefreshAfter() {
+            return refreshAfter;
+        }
+
+        public void setRefreshAfter(Duration refreshAfter) {
+            this.refreshAfter = refreshAfter;
+        }
+
+        public double getTtlJitter() {
+            return ttlJitter;
+        }
+
+        public void setTtlJitter(double ttlJitter) {
+            this.ttlJitter = ttlJitter;
+        }
+
+        public double getEarlyRefreshBeta() {
+            return earlyRefreshBeta;
+        }
+
+        public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+            this.earlyRefreshBeta = earlyRefreshBeta;
+        }
+
+        public Duration getHotKeyTtl() {
+            return hotKeyTtl;
+        }
+
+        public void setHotKeyTtl(Duration hotKeyTtl) {
+            this.hotKeyTtl = hotKeyTtl;
+        }
+
+        public int getHotKeyTopK() {
+            return hotKeyTopK;
+        }
+
+        public void setHotKeyTopK(int hotKeyTopK) {
+            this.hotKeyTopK = hotKeyTopK;
+        }
+
+        public int getHotKeySampleRate() {
+            return hotKeySampleRate;
+        }
+
+        public void setHotKeySampleRate(int hotKeySampleRate) {
+            this.hotKeySampleRate = hotKeySampleRate;
+        }
+
+        public int getL1AdmissionHits() {
+            return l1AdmissionHits;
+        }
+
+        public void setL1AdmissionHits(int l1AdmissionHits) {
+            this.l1AdmissionHits = l1AdmissionHits;
+        }
+
+        public Duration getL1AdmissionWindow() {
+            return l1AdmissionWindow;
+        }
+
+        public void setL1AdmissionWindow(Duration l1AdmissionWindow) {
+            this.l1AdmissionWindow = l1AdmissionWindow;
+        }
+
+        public Integer getL1AdmissionSketchSize() {
+            return l1AdmissionSketchSize;
+        }
+
+        public void setL1AdmissionSketchSize(Integer l1AdmissionSketchSize) {
+            this.l1AdmissionSketchSize = l1AdmissionSketchSize;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+
+        public boolean isBloomFilter() {
+            return bloomFilter;
+        }
+
+        public void setBloomFilter(boolean bloomFilter) {
+            this.bloomFilter = bloomFilter;
+        }
+
+        public double getBloomFilterFpp() {
+            return bloomFilterFpp;
+        }
+
+        public void setBloomFilterFpp(double bloomFilterFpp) {
+            this.bloomFilterFpp = bloomFilterFpp;
+        }
+
+        public WarmupMode getWarmup() {
+            return warmup;
+        }
+
+        public void setWarmup(WarmupMode warmup) {
+            this.warmup = warmup;
+        }
+
+        public int getWarmupMaxKeys() {
+            return warmupMaxKeys;
+        }
+
+        public void setWarmupMaxKeys(int warmupMaxKeys) {
+            this.warmupMaxKeys = warmupMaxKeys;
+        }
+
+        public boolean isWriteBehind() {
+            return writeBehind;
+        }
+
+        public void setWriteBehind(boolean writeBehind) {
+            this.writeBehind = writeBehind;
+        }
+
+        public int getWriteBehindCapacity() {
+            return writeBehindCapacity;
+        }
+
+        public void setWriteBehindCapacity(int writeBehindCapacity) {
+            this.writeBehindCapacity = writeBehindCapacity;
+        }
+
+        public int getWriteBehindBatchSize() {
+            return writeBehindBatchSize;
+        }
+
+        public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+            this.writeBehindBatchSize = writeBehindBatchSize;
+        }
+
+        /**
+         * 是否启用热点 key 延长 L1 过期
+         */
+        public boolean isHotKeyPinning() {
+            return l1Enabled && l1Store == L1Store.HEAP && hotKeyTtl != null && l1ExpireAfterAccess == null;
+        }
+    }
+
+    /**
+     * L2 值编码配置，对所有缓存生效
+     */
+    public static class Codec {
+        /**
+         * 预先注册到 Kryo 的类，按顺序分配 ID；各节点必须保持一致，只能在末尾追加
+         * <p>
+         * Kryo 只编解码注册过的类，kryo 编码的缓存中出现的业务类都需要配置在这里。
+         */
+        private List<String> kryoRegistrations = new ArrayList<>();
+
+        public List<String> getKryoRegistrations() {
+            return kryoRegistrations;
+        }
+
+        public void setKryoRegistrations(List<String> kryoRegistrations) {
+            this.kryoRegistrations = kryoRegistrations;
+        }
+    }
+
+    /**
+     * 启动预热：应用就绪前按各缓存的 warmup 配置把数据从 L2 批量加载到 L1
+     */
+    public static class Warmup {
+        /**
+         * 是否执行预热；关闭后停机时也不再保存热点 key
+         */
+        private boolean enabled = true;
+
+        /**
+         * 并发执行的批次数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 每批 MGET 的 key 数量
+         */
+        private int batchSize = 200;
+
+        /**
+         * 预热最长等待时间，超时后应用照常就绪，未完成的批次被取消
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+
+        /**
+         * 停机时保存热点 key 的存活时间，供下次启动预热
+         */
+        private Duration hotKeySnapshotTtl = Duration.ofDays(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getHotKeySnapshotTtl() {
+            return hotKeySnapshotTtl;
+        }
+
+        public void setHotKeySnapshotTtl(Duration hotKeySnapshotTtl) {
+            this.hotKeySnapshotTtl = hotKeySnapshotTtl;
+        }
+    }
+
+    /**
+     * 写后模式的后台刷新，所有开启 write-behind 的缓存共用一个刷新线程
+     */
+    public static class WriteBehind {
+        /**
+         * 定时刷新间隔，缓冲区中的写入最晚在该时间后写入 L2
+         */
+        private Duration flushInterval = Duration.ofMillis(10);
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    /**
+     * 后台刷新线程池，所有缓存共享；队列满时本次刷新被跳过，调用方继续使用旧值
+     */
+    public static class Refresh {
+        /**
+         * 刷新线程数
+         */
+        private int poolSize = 2;
+
+        /**
+         * 等待刷新的任务队列容量
+         */
+        private int queueCapacity = 100;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * 同步消息处理线程：按 key 分段，同一个 key 的消息由同一个线程按到达顺序应用
+     */
+    public static class Listener {
+        /**
+         * 分段数，即处理线程数；小于等于 0 时取 CPU 核数
+         */
+        private int stripes = 0;
+
+        /**
+         * 每段的队列容量，队列已满时更新消息降级为失效
+         */
+        private int queueCapacity = 1024;
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * 跨节点加载租约：同一个 key 同一时刻只允许一个节点回源重建
+     */
+    public static class LoadLease {
+        /**
+         * 是否启用基于 Redis 的加载租约
+         */
+        private boolean enabled = false;
+
+        /**
+         * 租约持有时长，应大于一次回源加载的耗时
+         */
+        private Duration ttl = Duration.ofSeconds(10);
+
+        /**
+         * 未抢到租约时等待其他节点写入 L2 的最长时间，超时后本节点自行加载
+         */
+        private Duration waitTimeout = Duration.ofSeconds(5);
+
+        /**
+         * 等待期间轮询 L2 的间隔
+         */
+        private Duration pollInterval = Duration.ofMillis(50);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+    }
+
+    /**
+     * 失效消息在发布前的聚合窗口
+     */
+    public static class Invalidation {
+        /**
+         * 聚合等待时间，窗口内同一缓存的失效 key 合并为一条消息
+         */
+        private Duration batchWindow = Duration.ofMillis(5);
+
+        /**
+         * 单条消息最多携带的 key 数，达到后立即发布
+         */
+        private int maxBatchSize = 256;
+
+        /**
+         * L1 失效的传播方式
+         */
+        private InvalidationTransport transport = InvalidationTransport.PUB_SUB;
+
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public InvalidationTransport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(InvalidationTransport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -4,10 +4,12 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.lab.chche.cache.CacheEvictMessageListener;
+import com.lab.chche.cache.CacheInvalidationPublisher;
 import com.lab.chche.cache.CacheUpdateMessageListener;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
@@ -46,12 +48,17 @@ public class RedisConfig {
 
     @Bean
     public ChannelTopic cacheUpdateTopic() {
-        return new ChannelTopic("cache:update");
+        return new ChannelTopic(CacheInvalidationPublisher.UPDATE_CHANNEL);
     }
 
     @Bean
     public ChannelTopic cacheEvictTopic() {
-        return new ChannelTopic("cache:evict");
+        return new ChannelTopic(CacheInvalidationPublisher.EVICT_CHANNEL);
+    }
+
+    @Bean
+    public ChannelTopic cacheClearTopic() {
+        return new ChannelTopic(CacheInvalidationPublisher.CLEAR_CHANNEL);
     }
 
     @Bean
@@ -62,9 +69,13 @@ public class RedisConfig {
         
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(redisConnectionFactory);
+        // 监听器只解码并分发到按 key 分段的处理线程，直接在订阅线程上执行以保留消息的到达顺序，
+        // 默认的 SimpleAsyncTaskExecutor 每条消息新建一个线程，既无上限也不保证顺序
+        container.setTaskExecutor(new SyncTaskExecutor());
         
         container.addMessageListener(cacheUpdateMessageListener, cacheUpdateTopic());
         container.addMessageListener(cacheEvictMessageListener, cacheEvictTopic());
+        container.addMessageListener(cacheEvictMessageListener, cacheClearTopic());
         
         return container;
     }
@@ -9,8 +9,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/users")
@@ -34,6 +36,23 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    /**
+     * 异步获取用户，等待 Redis 期间不占用请求线程
+     */
+    @GetMapping("/{id}/async")
+    public CompletableFuture<ResponseEntity<UserService.User>> getUserAsync(@PathVariable Long id) {
+        return userService.getUserByIdAsync(id)
+                .thenApply(user -> user != null ? ResponseEntity.ok(user) : ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 批量获取用户，例如 /api/users/batch?ids=1,2,3
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<Collection<UserService.User>> getUsers(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids).values());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateUser(
             @PathVariable Long id,
@@ -0,0 +1,42 @@
+package com.lab.chche.service;
+
+import com.lab.chche.cache.CacheTagResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户列表与搜索结果按其中包含的用户打上 user:{id} 标签，删除或修改用户时只失效包含该用户的条目
+ * <p>
+ * 所有条目（包括空结果）另带 {@link UserService#USER_QUERY_TAG}，用户新增或改名后可按查询条件找出新匹配的结果。
+ */
+@Component
+public class UserCacheTagResolver implements CacheTagResolver {
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Arrays.asList("userListCache", "userSearchCache");
+    }
+
+    @Override
+    public Collection<String> tags(Object key, Object value) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(UserService.USER_QUERY_TAG);
+        collect(value, tags);
+        return tags;
+    }
+
+    private static void collect(Object value, Set<String> tags) {
+        if (value instanceof UserService.User) {
+            tags.add(UserService.userTag(((UserService.User) value).getId()));
+        } else if (value instanceof Collection) {
+            ((Collection<?>) value).forEach(element -> collect(element, tags));
+        } else if (value instanceof Map) {
+            ((Map<?, ?>) value).values().forEach(element -> collect(element, tags));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.lab.chche.service;
+
+import com.lab.chche.cache.CacheWarmupSource;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * userCache 的全量 key 来源，同时负责预热时加载 L2 中缺失的用户
+ */
+@Component
+public class UserCacheWarmupSource implements CacheWarmupSource {
+
+    private final UserService userService;
+
+    // UserService 依赖缓存管理器，这里延迟注入，避免创建缓存时形成循环依赖
+    public UserCacheWarmupSource(@Lazy UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public String getCacheName() {
+        return "userCache";
+    }
+
+    @Override
+    public Collection<?> keys() {
+        return userService.getAllUserIds();
+    }
+
+    @Override
+    public Map<?, ?> load(Collection<?> keys) {
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            if (key instanceof Long) {
+                ids.add((Long) key);
+            }
+        }
+        return ids.isEmpty() ? Collections.emptyMap() : userService.loadUsers(ids);
+    }
+
+    @Override
+    public Object parseKey(String redisKey) {
+        return Long.valueOf(redisKey);
+    }
+}
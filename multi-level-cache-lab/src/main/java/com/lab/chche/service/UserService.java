@@ -1,5 +1,6 @@
 package com.lab.chche.service;
 
+import com.lab.chche.cache.MultiLevelCacheManager;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -7,32 +8,86 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @Service
 @CacheConfig(cacheManager = "multiLevelCacheManager")
 public class UserService {
+
+    /**
+     * 用户查询结果的公共标签，记录所有列表与搜索结果的 key
+     */
+    public static final String USER_QUERY_TAG = "user:query";
     
     // Simulating a database
     private final Map<Long, User> userDatabase = new HashMap<>();
 
+    private final MultiLevelCacheManager cacheManager;
     
     // Initialize with some sample data
-    public UserService() {
+    public UserService(MultiLevelCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
         userDatabase.put(1L, new User(1L, "John Doe", "john@example.com"));
         userDatabase.put(2L, new User(2L, "Jane Smith", "jane@example.com"));
     }
     
-    @Cacheable(value = "userCache", key = "#id")
+    @Cacheable(value = "userCache", key = "#id", sync = true)
     public User getUserById(Long id) {
         // Simulate database delay
         simulateSlowService();
         return userDatabase.get(id);
     }
 
+    /**
+     * 批量获取用户，与 getUserById 共用 userCache
+     * 未命中的 id 合并为一次 L2 批量读取和一次数据库查询，而不是逐个回源
+     */
+    public Map<Long, User> getUsersByIds(Collection<Long> ids) {
+        MultiLevelCacheManager.MultiLevelCache cache =
+                (MultiLevelCacheManager.MultiLevelCache) cacheManager.getCache("userCache");
+        return cache.getAll(ids, this::loadUsers);
+    }
+
+    /**
+     * 异步获取用户，与 getUserById 共用 userCache；L2 读写不阻塞调用线程
+     */
+    public CompletableFuture<User> getUserByIdAsync(Long id) {
+        MultiLevelCacheManager.MultiLevelCache cache =
+                (MultiLevelCacheManager.MultiLevelCache) cacheManager.getCache("userCache");
+        // 模拟异步的数据库查询
+        return cache.getAsync(id, () -> CompletableFuture.supplyAsync(() -> userDatabase.get(id)));
+    }
+
+    /**
+     * 直接从数据库批量读取用户，不经过缓存
+     */
+    public Map<Long, User> loadUsers(Collection<Long> ids) {
+        simulateSlowService();
+        Map<Long, User> users = new LinkedHashMap<>();
+        for (Long id : ids) {
+            User user = userDatabase.get(id);
+            if (user != null) {
+                users.put(id, user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 当前所有用户 id，用于构建 userCache 的 Bloom 过滤器
+     */
+    public Set<Long> getAllUserIds() {
+        return new HashSet<>(userDatabase.keySet());
+    }
+
     // This method would be called to refresh the cache
     @CachePut(value = "userCache", key = "#user.id")
     public User refreshUser(User user) {
@@ -53,56 +108,74 @@ public class UserService {
      * 获取所有用户列表（带缓存）
      * 使用固定key 'allUsers' 来缓存整个列表
      */
-    @Cacheable(value = "userListCache", key = "'allUsers'")
+    @Cacheable(value = "userListCache", key = "'allUsers'", sync = true)
     public List<User> getAllUsers() {
         simulateSlowService();
         return new ArrayList<>(userDatabase.values());
     }
 
-    @Cacheable(value = "userListCache", key = "'allUsersMap'")
+    @Cacheable(value = "userListCache", key = "'allUsersMap'", sync = true)
     public Map<String, List<User>> getAllUsersMap() {
         simulateSlowService();
         List<User> list = new ArrayList<>(userDatabase.values());
 
-        // 返回一个包含用户列表的Map
-        return new HashMap<String, List<User>>() {{
-            put("users", list);
-        }};
+        // 返回一个包含用户列表的Map；不使用匿名子类，否则会连同外部 Service 实例一起被序列化
+        Map<String, List<User>> result = new HashMap<>();
+        result.put("users", list);
+        return result;
     }
     
     /**
-     * 更新用户信息时，同时更新用户缓存和用户列表缓存
+     * 更新用户信息时更新用户缓存，并只失效依赖该用户的查询结果：
+     * 原来包含该用户的列表与搜索结果按 user:{id} 标签失效；更新后可能新包含该用户的结果按查询条件判断，
+     * 全量列表总是包含，搜索结果只失效关键字与新名称匹配的条目
      */
     @CachePut(value = "userCache", key = "#user.id")
-    @CacheEvict(value = "userListCache", key = "'allUsers'")
     public User updateUser(User user) {
         // 更新数据库
         userDatabase.put(user.getId(), user);
+        cacheManager.evictByTag(userTag(user.getId()), "userListCache", "userSearchCache");
+        cacheManager.evictByTag(USER_QUERY_TAG, key -> true, "userListCache");
+        cacheManager.evictByTag(USER_QUERY_TAG, key -> key instanceof String && nameMatches(user, (String) key),
+                "userSearchCache");
         return user;
     }
     
     /**
-     * 删除用户时，同时从用户缓存和用户列表缓存中移除
+     * 删除用户时只失效依赖该用户的条目：用户缓存按 key 删除，列表与搜索结果按 user:{id} 标签删除，
+     * 其他条目和其他节点的 L1 保持不变
      */
-    @CacheEvict(value = {"userCache", "userListCache"}, allEntries = true)
+    @CacheEvict(value = "userCache", key = "#id")
     public void deleteUser(Long id) {
         userDatabase.remove(id);
+        cacheManager.evictByTag(userTag(id), "userListCache", "userSearchCache");
+    }
+
+    public static String userTag(Long id) {
+        return "user:" + id;
     }
     
     /**
      * 根据名称搜索用户（带缓存）
      */
-    @Cacheable(value = "userSearchCache", key = "#name")
+    @Cacheable(value = "userSearchCache", key = "#name", sync = true)
     public List<User> searchUsersByName(String name) {
         simulateSlowService();
         List<User> result = new ArrayList<>();
         for (User user : userDatabase.values()) {
-            if (user.getName().toLowerCase().contains(name.toLowerCase())) {
+            if (nameMatches(user, name)) {
                 result.add(user);
             }
         }
         return result;
     }
+
+    /**
+     * searchUsersByName 的匹配条件，更新用户时用同一条件判断哪些搜索结果需要失效
+     */
+    private static boolean nameMatches(User user, String name) {
+        return user.getName() != null && user.getName().toLowerCase().contains(name.toLowerCase());
+    }
     
     /**
      * 清除所有用户相关缓存
@@ -0,0 +1,58 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheEntryTest {
+
+    @Test
+    void higherVersionWins() {
+        CacheEntry older = new CacheEntry("a", 1L, "node-a");
+        CacheEntry newer = new CacheEntry("b", 2L, "node-a");
+
+        assertTrue(newer.isNewerThan(older));
+        assertFalse(older.isNewerThan(newer));
+        assertTrue(older.isNewerThan(null));
+    }
+
+    @Test
+    void tombstoneRejectsOlderValueAndLosesToNewerValue() {
+        CacheEntry tombstone = CacheEntry.tombstone(5L, "node-a");
+
+        assertFalse(new CacheEntry("stale", 4L, "node-b").isNewerThan(tombstone));
+        assertTrue(new CacheEntry("fresh", 6L, "node-b").isNewerThan(tombstone));
+        assertTrue(tombstone.isNewerThan(new CacheEntry("stale", 4L, "node-b")));
+    }
+
+    @Test
+    void sameVersionPrefersDataOverTombstone() {
+        CacheEntry value = new CacheEntry("v", 5L, "node-a");
+        CacheEntry tombstone = CacheEntry.tombstone(5L, "node-b");
+
+        assertTrue(value.isNewerThan(tombstone));
+        assertFalse(tombstone.isNewerThan(value));
+    }
+
+    @Test
+    void sameVersionIsOrderedByOriginAndNeverBothWin() {
+        CacheEntry a = new CacheEntry("a", 5L, "node-a");
+        CacheEntry b = new CacheEntry("b", 5L, "node-b");
+
+        assertTrue(a.isNewerThan(b) != b.isNewerThan(a));
+        assertFalse(a.isNewerThan(new CacheEntry("a", 5L, "node-a")));
+    }
+
+    @Test
+    void negativeEntry() {
+        assertTrue(new CacheEntry(null, 1L, "node-a").isNegative());
+        assertFalse(CacheEntry.tombstone(1L, "node-a").isNegative());
+    }
+
+    @Test
+    void equalityIgnoresValue() {
+        assertEquals(new CacheEntry("a", 1L, "node-a"), new CacheEntry("b", 1L, "node-a"));
+    }
+}
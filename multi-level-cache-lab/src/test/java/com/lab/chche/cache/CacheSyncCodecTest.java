@@ -0,0 +1,149 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheSyncCodecTest {
+
+    private static final String ORIGIN = "node-a";
+    private static final String CACHE = "userCache";
+
+    @Test
+    void invalidationRoundTripKeepsKeyTypesAndVersions() {
+        Map<Object, Long> keys = new LinkedHashMap<>();
+        keys.put(1L, 10L);
+        keys.put(2, 20L);
+        keys.put("alice", 30L);
+        keys.put(new SimpleKey("bob", 3L), 40L);
+
+        CacheSyncCodec.InvalidationBatch batch =
+                CacheSyncCodec.decodeInvalidation(CacheSyncCodec.encodeInvalidation(ORIGIN, CACHE, keys,
+                        Collections.singleton("alice")));
+
+        assertFalse(batch.isClear());
+        assertEquals(ORIGIN, batch.getOrigin());
+        assertEquals(CACHE, batch.getCacheName());
+        assertEquals(Arrays.asList(keys.keySet().toArray()), batch.getKeys());
+        assertEquals(Long.class, batch.getKeys().get(0).getClass());
+        assertEquals(Integer.class, batch.getKeys().get(1).getClass());
+        assertEquals(10L, batch.getVersion(0));
+        assertEquals(40L, batch.getVersion(3));
+        assertFalse(batch.isWrite(0));
+        assertTrue(batch.isWrite(2));
+    }
+
+    @Test
+    void clearRoundTrip() {
+        CacheSyncCodec.InvalidationBatch batch =
+                CacheSyncCodec.decodeInvalidation(CacheSyncCodec.encodeClear(ORIGIN, CACHE));
+
+        assertTrue(batch.isClear());
+        assertTrue(batch.getKeys().isEmpty());
+    }
+
+    @Test
+    void updateRoundTrip() {
+        byte[] value = {1, 2, 3};
+        CacheSyncCodec.UpdateFrame frame =
+                CacheSyncCodec.decodeUpdate(CacheSyncCodec.encodeUpdate(ORIGIN, CACHE, 7L, 99L, value));
+
+        assertEquals(7L, frame.getKey());
+        assertEquals(99L, frame.getVersion());
+        assertArrayEquals(value, frame.getValue());
+        assertNull(CacheSyncCodec.decodeInvalidation(CacheSyncCodec.encodeUpdate(ORIGIN, CACHE, 7L, 99L, value)));
+    }
+
+    @Test
+    void hasOriginComparesHeaderBytes() {
+        byte[] frame = CacheSyncCodec.encodeClear(ORIGIN, CACHE);
+
+        assertTrue(CacheSyncCodec.hasOrigin(frame, ORIGIN.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(CacheSyncCodec.hasOrigin(frame, "node-b".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsKeyCountBeyondFrame() {
+        Map<Object, Long> keys = new LinkedHashMap<>();
+        keys.put(1L, 1L);
+        byte[] frame = CacheSyncCodec.encodeInvalidation(ORIGIN, CACHE, keys, Collections.emptySet());
+        ByteBuffer.wrap(frame).putInt(countOffset(), Integer.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class, () -> CacheSyncCodec.decodeInvalidation(frame));
+    }
+
+    @Test
+    void rejectsValueLengthBeyondFrame() {
+        byte[] frame = CacheSyncCodec.encodeUpdate(ORIGIN, CACHE, 7L, 1L, new byte[]{1, 2, 3});
+        // 最后 3 字节是值，其前 4 字节是值长度
+        ByteBuffer.wrap(frame).putInt(frame.length - 7, 1 << 30);
+
+        assertThrows(IllegalArgumentException.class, () -> CacheSyncCodec.decodeUpdate(frame));
+    }
+
+    @Test
+    void simpleKeyRoundTrip() {
+        SimpleKey key = new SimpleKey("alice", 1L, 2);
+
+        assertEquals(key, CacheSyncCodec.decodeKey(CacheSyncCodec.encodeKey(key)));
+    }
+
+    @Test
+    void refusesToWriteUnlistedKeyClass() {
+        assertThrows(IllegalArgumentException.class, () -> CacheSyncCodec.encodeKey(new SimpleKey(new Date())));
+    }
+
+    @Test
+    void refusesToReadUnlistedKeyClass() throws IOException {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(new Date());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(4);
+            out.writeInt(serialized.size());
+            serialized.writeTo(out);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> CacheSyncCodec.decodeKey(bytes.toByteArray()));
+    }
+
+    @Test
+    void keysRoundTrip() {
+        List<Object> keys = Arrays.asList(1L, 2, "alice", new SimpleKey("bob", 3L));
+
+        assertEquals(keys, CacheSyncCodec.decodeKeys(CacheSyncCodec.encodeKeys(keys)));
+    }
+
+    @Test
+    void rejectsKeysCountBeyondSnapshot() {
+        byte[] bytes = CacheSyncCodec.encodeKeys(Collections.singletonList(1L));
+        ByteBuffer.wrap(bytes).putInt(0, Integer.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class, () -> CacheSyncCodec.decodeKeys(bytes));
+    }
+
+    private static int countOffset() {
+        return 2 + 2 + ORIGIN.length() + 2 + CACHE.length();
+    }
+}
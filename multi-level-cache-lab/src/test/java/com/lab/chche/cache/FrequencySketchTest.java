@@ -0,0 +1,50 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void neverUnderestimates() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int key = 0; key < 1000; key++) {
+            for (int i = 0; i <= key % 5; i++) {
+                sketch.increment(key);
+            }
+        }
+
+        for (int key = 0; key < 1000; key++) {
+            assertTrue(sketch.frequency(key) >= key % 5 + 1);
+        }
+    }
+
+    @Test
+    void halveDecaysCounts() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("cold");
+
+        sketch.halve();
+
+        assertEquals(4, sketch.frequency("hot"));
+        assertEquals(0, sketch.frequency("cold"));
+    }
+
+    @Test
+    void agesAfterSampleSizeAdditions() {
+        // 宽度 128，每 1280 次增加后减半
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 1279; i++) {
+            sketch.increment("hot");
+        }
+        assertEquals(1279, sketch.frequency("hot"));
+
+        sketch.increment("hot");
+        assertEquals(640, sketch.frequency("hot"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HybridLogicalClockTest {
+
+    @Test
+    void versionsAreStrictlyIncreasing() {
+        HybridLogicalClock clock = new HybridLogicalClock();
+        long previous = clock.now();
+        for (int i = 0; i < 100_000; i++) {
+            long next = clock.now();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void remoteVersionFromTheFutureAdvancesLocalClock() {
+        HybridLogicalClock clock = new HybridLogicalClock();
+        long remote = (System.currentTimeMillis() + 60_000) << 16;
+
+        clock.update(remote);
+
+        assertTrue(clock.now() > remote);
+    }
+
+    @Test
+    void olderRemoteVersionDoesNotMoveClockBackwards() {
+        HybridLogicalClock clock = new HybridLogicalClock();
+        long local = clock.now();
+
+        clock.update(1L);
+
+        assertTrue(clock.now() > local);
+    }
+
+    @Test
+    void physicalTimeIsWriteTimeInMillis() {
+        long before = System.currentTimeMillis();
+        long physical = HybridLogicalClock.physicalTime(new HybridLogicalClock().now());
+
+        assertTrue(physical >= before && physical <= System.currentTimeMillis());
+    }
+}
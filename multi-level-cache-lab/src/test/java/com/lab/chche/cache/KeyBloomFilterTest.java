@@ -0,0 +1,56 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyBloomFilterTest {
+
+    @Test
+    void containsEveryInsertedKey() {
+        KeyBloomFilter filter = new KeyBloomFilter(10_000, 0.01);
+        for (long id = 0; id < 10_000; id++) {
+            filter.put(id);
+            filter.put("user:" + id);
+        }
+
+        for (long id = 0; id < 10_000; id++) {
+            assertTrue(filter.mightContain(id));
+            assertTrue(filter.mightContain("user:" + id));
+        }
+    }
+
+    @Test
+    void integerAndLongKeysHashTheSame() {
+        KeyBloomFilter filter = new KeyBloomFilter(100, 0.01);
+        filter.put(42);
+
+        // Integer 与 Long 按数值哈希
+        assertTrue(filter.mightContain(42L));
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        KeyBloomFilter filter = new KeyBloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain(1L));
+        assertFalse(filter.mightContain("user:1"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        KeyBloomFilter filter = new KeyBloomFilter(10_000, 0.01);
+        for (long id = 0; id < 10_000; id++) {
+            filter.put(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = 10_000; id < 110_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
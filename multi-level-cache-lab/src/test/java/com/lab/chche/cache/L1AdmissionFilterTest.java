@@ -0,0 +1,31 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class L1AdmissionFilterTest {
+
+    @Test
+    void admitsOnMinHitsWithinWindow() {
+        L1AdmissionFilter filter = new L1AdmissionFilter(2, TimeUnit.MINUTES.toNanos(1), 1024);
+
+        assertFalse(filter.admit("k"));
+        assertTrue(filter.admit("k"));
+        assertFalse(filter.admit("other"));
+    }
+
+    @Test
+    void hitsDecayWhenWindowEnds() throws InterruptedException {
+        // 每次调用时窗口都已结束，上一次的命中减半后不足以准入
+        L1AdmissionFilter filter = new L1AdmissionFilter(2, 1L, 1024);
+
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(1);
+            assertFalse(filter.admit("k"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.lab.chche.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindBufferTest {
+
+    @Test
+    void keepsNewestOperationPerKey() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10);
+        CacheEntry newer = new CacheEntry("v2", 2L, "node-a");
+        buffer.offer("k", newer);
+        buffer.offer("k", new CacheEntry("v1", 1L, "node-a"));
+
+        assertSame(newer, buffer.pending("k"));
+
+        CacheEntry tombstone = CacheEntry.tombstone(3L, "node-a");
+        buffer.offer("k", tombstone);
+        assertSame(tombstone, buffer.pending("k"));
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void rejectsNewKeysWhenFull() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(2, 10);
+
+        assertTrue(buffer.offer("a", new CacheEntry("a", 1L, "node-a")));
+        assertTrue(buffer.offer("b", new CacheEntry("b", 1L, "node-a")));
+        assertFalse(buffer.offer("c", new CacheEntry("c", 1L, "node-a")));
+        // 已在缓冲区中的 key 仍可合并
+        assertTrue(buffer.offer("a", new CacheEntry("a2", 2L, "node-a")));
+    }
+
+    @Test
+    void flushWritesInBatches() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 2);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i, new CacheEntry("v" + i, 1L, "node-a"));
+        }
+        assertTrue(buffer.shouldFlushNow());
+        assertFalse(buffer.shouldFlushNow());
+
+        List<Map<Object, CacheEntry>> batches = new ArrayList<>();
+        assertEquals(5, buffer.flush(batch -> batches.add(new LinkedHashMap<>(batch))));
+
+        assertEquals(3, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(1, batches.get(2).size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void failedBatchIsRequeuedUnlessOverwritten() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10);
+        buffer.offer("a", new CacheEntry("a1", 1L, "node-a"));
+        buffer.offer("b", new CacheEntry("b1", 1L, "node-a"));
+        CacheEntry newer = new CacheEntry("a2", 2L, "node-a");
+
+        assertThrows(IllegalStateException.class, () -> buffer.flush(batch -> {
+            // 写入期间 a 又被更新
+            buffer.offer("a", newer);
+            throw new IllegalStateException("redis down");
+        }));
+
+        assertSame(newer, buffer.pending("a"));
+        assertEquals("b1", buffer.pending("b").getValue());
+    }
+
+    @Test
+    void clearDropsPendingWrites() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(10, 10);
+        buffer.offer("a", new CacheEntry("a", 1L, "node-a"));
+        buffer.clear();
+
+        assertNull(buffer.pending("a"));
+        assertEquals(0, buffer.flush(batch -> { }));
+    }
+}
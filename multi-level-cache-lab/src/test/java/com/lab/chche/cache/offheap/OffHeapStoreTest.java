@@ -0,0 +1,122 @@
+package com.lab.chche.cache.offheap;
+
+import com.lab.chche.cache.CacheEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapStoreTest {
+
+    private static final int BLOCK_SIZE = 256;
+    private static final int BLOCKS = 64;
+
+    private CountingSerializer serializer;
+    private OffHeapStore store;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new CountingSerializer();
+        store = new OffHeapStore((long) BLOCKS * BLOCK_SIZE, BLOCK_SIZE, 1, 0L, 0.0, serializer);
+    }
+
+    @Test
+    void roundTripsValues() {
+        assertTrue(store.set("k", "v"));
+        assertEquals("v", store.get("k"));
+        assertEquals("v", store.put("k", "w"));
+        assertEquals("w", store.remove("k"));
+        assertNull(store.get("k"));
+    }
+
+    @Test
+    void putIfNewerComparesVersionsWithoutDecoding() {
+        store.set("k", new CacheEntry("v2", 2L, "node-a"));
+        serializer.decodes.set(0);
+
+        assertFalse(store.putIfNewer("k", new CacheEntry("v1", 1L, "node-a"), false));
+        assertTrue(store.putIfNewer("k", new CacheEntry("v3", 3L, "node-a"), false));
+        assertTrue(store.putIfNewer("k", CacheEntry.tombstone(4L, "node-b"), true));
+
+        CacheEntry header = store.header("k");
+        assertEquals(4L, header.getVersion());
+        assertEquals("node-b", header.getOrigin());
+        assertTrue(header.isTombstone());
+        assertEquals(0, serializer.decodes.get());
+    }
+
+    @Test
+    void putIfNewerOnlyIfPresentSkipsAbsentKeys() {
+        assertFalse(store.putIfNewer("k", CacheEntry.tombstone(1L, "node-a"), true));
+        assertFalse(store.containsKey("k"));
+        assertTrue(store.putIfNewer("k", new CacheEntry("v", 1L, "node-a"), false));
+        assertTrue(store.containsKey("k"));
+    }
+
+    @Test
+    void conditionalOperationsOnEntriesDoNotDecode() {
+        CacheEntry entry = new CacheEntry("v1", 1L, "node-a");
+        store.set("k", entry);
+        serializer.decodes.set(0);
+
+        assertFalse(store.replace("k", new CacheEntry("v1", 2L, "node-a"), new CacheEntry("x", 3L, "node-a")));
+        assertTrue(store.replace("k", entry, new CacheEntry("v2", 2L, "node-a")));
+        assertFalse(store.remove("k", entry));
+        assertTrue(store.remove("k", new CacheEntry(null, 2L, "node-a")));
+        assertFalse(store.delete("k"));
+        assertEquals(0, serializer.decodes.get());
+    }
+
+    @Test
+    void reportsValuesLargerThanSegment() {
+        byte[] large = new byte[BLOCKS * BLOCK_SIZE + 1];
+
+        assertFalse(store.set("k", large));
+        assertFalse(store.containsKey("k"));
+    }
+
+    @Test
+    void reportsAdmissionRejection() {
+        // 每个值占一个块，正好填满分段
+        for (int i = 0; i < BLOCKS; i++) {
+            assertTrue(store.set("hot-" + i, "v"));
+            store.get("hot-" + i);
+        }
+
+        assertFalse(store.set("cold", "v"));
+        assertFalse(store.containsKey("cold"));
+        assertEquals(1L, store.stats().get("rejections"));
+    }
+
+    @Test
+    void keepsLayoutForReconfigure() {
+        assertTrue(store.hasLayout((long) BLOCKS * BLOCK_SIZE, BLOCK_SIZE));
+        assertFalse(store.hasLayout((long) BLOCKS * BLOCK_SIZE * 2, BLOCK_SIZE));
+
+        store.set("k", "v");
+        store.reconfigure(0L, 0.0, RedisSerializer.java());
+        assertEquals("v", store.get("k"));
+    }
+
+    private static final class CountingSerializer implements RedisSerializer<Object> {
+        private final RedisSerializer<Object> delegate = RedisSerializer.java();
+        private final AtomicInteger decodes = new AtomicInteger();
+
+        @Override
+        public byte[] serialize(Object value) {
+            return delegate.serialize(value);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            decodes.incrementAndGet();
+            return delegate.deserialize(bytes);
+        }
+    }
+}
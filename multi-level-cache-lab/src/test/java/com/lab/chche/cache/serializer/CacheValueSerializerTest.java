@@ -0,0 +1,165 @@
+package com.lab.chche.cache.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.lab.chche.cache.CacheEntry;
+import com.lab.chche.config.MultiLevelCacheProperties;
+import com.lab.chche.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheValueSerializerTest {
+
+    private static final Map<MultiLevelCacheProperties.CacheCodec, ValueCodec> CODECS = CacheValueSerializer.createCodecs(
+            Arrays.asList(UserService.User.class.getName(), UserService.UserOrg.class.getName()));
+
+    @Test
+    void roundTripEveryCodecWithAndWithoutCompression() {
+        for (MultiLevelCacheProperties.CacheCodec codec : MultiLevelCacheProperties.CacheCodec.values()) {
+            if (codec == MultiLevelCacheProperties.CacheCodec.JDK) {
+                // User 未实现 Serializable，JDK 格式单独验证
+                continue;
+            }
+            for (int threshold : new int[]{0, 64}) {
+                CacheValueSerializer serializer = new CacheValueSerializer(CODECS, codec, threshold);
+
+                Object decoded = serializer.deserialize(serializer.serialize(users(200)));
+
+                assertUsers(decoded, 200, codec + " threshold=" + threshold);
+            }
+        }
+    }
+
+    @Test
+    void roundTripJdkCodec() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.JDK, 64);
+        List<String> value = new ArrayList<>(Collections.nCopies(100, "value"));
+
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+    }
+
+    @Test
+    void compressesLargeValues() {
+        CacheValueSerializer plain = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 0);
+        CacheValueSerializer compressed = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 64);
+
+        assertTrue(compressed.serialize(users(200)).length < plain.serialize(users(200)).length);
+    }
+
+    @Test
+    void decodesValuesWithAnotherCodecThanConfigured() {
+        byte[] smile = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.SMILE, 0)
+                .serialize(users(3));
+
+        Object decoded = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 0)
+                .deserialize(smile);
+
+        assertUsers(decoded, 3, "smile read by kryo-configured cache");
+    }
+
+    @Test
+    void decodesLegacyJdkAndJsonValues() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 0);
+        byte[] jdk = new JdkSerializationRedisSerializer().serialize(new ArrayList<>(Arrays.asList("a", "b")));
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(users(2));
+
+        assertEquals(Arrays.asList("a", "b"), serializer.deserialize(jdk));
+        assertUsers(serializer.deserialize(json), 2, "legacy json");
+    }
+
+    @Test
+    void nullAndEmpty() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 0);
+
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void rejectsTamperedOriginalLength() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 64);
+        byte[] bytes = serializer.serialize(users(200));
+        ByteBuffer.wrap(bytes).putInt(1, Integer.MAX_VALUE);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    @Test
+    void recordsEncodedSizeOnEntries() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CODECS, MultiLevelCacheProperties.CacheCodec.KRYO, 64);
+        CacheEntry entry = new CacheEntry(users(200), 1L, "node-a");
+        byte[] bytes = serializer.serialize(entry);
+        int size = entry.getSerializedSize();
+
+        // 压缩后记录的仍是未压缩的大小
+        assertTrue(size > bytes.length);
+        assertEquals(size, ((CacheEntry) serializer.deserialize(bytes)).getSerializedSize());
+    }
+
+    @Test
+    void jacksonOnlyRestoresAllowedTypes() throws Exception {
+        JacksonValueCodec codec = new JacksonValueCodec(new SmileFactory());
+        Map<String, Long> map = new HashMap<>();
+        map.put("a", 1L);
+
+        assertEquals(map, decode(codec, codec.encode(map)));
+        assertEquals(7L, decode(codec, codec.encode(7L)));
+        byte[] outsideAllowList = codec.encode(new URI("http://example.com"));
+        assertThrows(SerializationException.class, () -> decode(codec, outsideAllowList));
+    }
+
+    @Test
+    void kryoRejectsUnregisteredClasses() {
+        KryoValueCodec codec = new KryoValueCodec(Collections.emptyList());
+        assertThrows(SerializationException.class, () -> codec.encode(users(1)));
+
+        // 未要求注册的 Kryo 按类名写入
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        byte[] bytes;
+        try (Output output = new Output(64, -1)) {
+            kryo.writeClassAndObject(output, new UserService.UserOrg());
+            bytes = output.toBytes();
+        }
+        assertThrows(SerializationException.class, () -> decode(codec, bytes));
+        assertEquals("ok", decode(codec, codec.encode("ok")));
+    }
+
+    private static Object decode(ValueCodec codec, byte[] bytes) {
+        return codec.decode(bytes, 0, bytes.length);
+    }
+
+    private static List<UserService.User> users(int count) {
+        List<UserService.User> users = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            users.add(new UserService.User(id, "user" + id, "user" + id + "@example.com"));
+        }
+        return users;
+    }
+
+    private static void assertUsers(Object decoded, int count, String message) {
+        assertTrue(decoded instanceof List, message);
+        List<?> users = (List<?>) decoded;
+        assertEquals(count, users.size(), message);
+        UserService.User last = (UserService.User) users.get(count - 1);
+        assertEquals(Long.valueOf(count), last.getId(), message);
+        assertEquals("user" + count + "@example.com", last.getEmail(), message);
+    }
+}